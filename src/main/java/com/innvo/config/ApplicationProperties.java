@@ -2,6 +2,9 @@ package com.innvo.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Properties specific to JHipster.
  *
@@ -12,4 +15,745 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Search search = new Search();
+
+    private final Elasticsearch elasticsearch = new Elasticsearch();
+
+    private final Audit audit = new Audit();
+
+    private final Changes changes = new Changes();
+
+    private final Replica replica = new Replica();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    private final LocalCache localCache = new LocalCache();
+
+    private final WarmUp warmUp = new WarmUp();
+
+    private final Shutdown shutdown = new Shutdown();
+
+    private final HotKeys hotKeys = new HotKeys();
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Elasticsearch getElasticsearch() {
+        return elasticsearch;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public Changes getChanges() {
+        return changes;
+    }
+
+    public Replica getReplica() {
+        return replica;
+    }
+
+    public BulkImport getBulkImport() {
+        return bulkImport;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    public LocalCache getLocalCache() {
+        return localCache;
+    }
+
+    public WarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    public Shutdown getShutdown() {
+        return shutdown;
+    }
+
+    public HotKeys getHotKeys() {
+        return hotKeys;
+    }
+
+    public static class Search {
+
+        /**
+         * Search backend: "elasticsearch" or "database".
+         */
+        private String backend = "elasticsearch";
+
+        private int maxClauses = 64;
+
+        private long timeoutInMs = 1000;
+
+        private int terminateAfter = 100000;
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        public int getMaxClauses() {
+            return maxClauses;
+        }
+
+        public void setMaxClauses(int maxClauses) {
+            this.maxClauses = maxClauses;
+        }
+
+        public long getTimeoutInMs() {
+            return timeoutInMs;
+        }
+
+        public void setTimeoutInMs(long timeoutInMs) {
+            this.timeoutInMs = timeoutInMs;
+        }
+
+        public int getTerminateAfter() {
+            return terminateAfter;
+        }
+
+        public void setTerminateAfter(int terminateAfter) {
+            this.terminateAfter = terminateAfter;
+        }
+    }
+
+    public static class Elasticsearch {
+
+        private final Bulk bulk = new Bulk();
+
+        public Bulk getBulk() {
+            return bulk;
+        }
+
+        public static class Bulk {
+
+            private int actions = 1000;
+
+            private long sizeInBytes = 5 * 1024 * 1024;
+
+            private long flushIntervalInMs = 1000;
+
+            private int concurrentRequests = 1;
+
+            private long backoffDelayInMs = 50;
+
+            private int backoffMaxRetries = 8;
+
+            private long closeTimeoutInSeconds = 30;
+
+            public int getActions() {
+                return actions;
+            }
+
+            public void setActions(int actions) {
+                this.actions = actions;
+            }
+
+            public long getSizeInBytes() {
+                return sizeInBytes;
+            }
+
+            public void setSizeInBytes(long sizeInBytes) {
+                this.sizeInBytes = sizeInBytes;
+            }
+
+            public long getFlushIntervalInMs() {
+                return flushIntervalInMs;
+            }
+
+            public void setFlushIntervalInMs(long flushIntervalInMs) {
+                this.flushIntervalInMs = flushIntervalInMs;
+            }
+
+            public int getConcurrentRequests() {
+                return concurrentRequests;
+            }
+
+            public void setConcurrentRequests(int concurrentRequests) {
+                this.concurrentRequests = concurrentRequests;
+            }
+
+            public long getBackoffDelayInMs() {
+                return backoffDelayInMs;
+            }
+
+            public void setBackoffDelayInMs(long backoffDelayInMs) {
+                this.backoffDelayInMs = backoffDelayInMs;
+            }
+
+            public int getBackoffMaxRetries() {
+                return backoffMaxRetries;
+            }
+
+            public void setBackoffMaxRetries(int backoffMaxRetries) {
+                this.backoffMaxRetries = backoffMaxRetries;
+            }
+
+            public long getCloseTimeoutInSeconds() {
+                return closeTimeoutInSeconds;
+            }
+
+            public void setCloseTimeoutInSeconds(long closeTimeoutInSeconds) {
+                this.closeTimeoutInSeconds = closeTimeoutInSeconds;
+            }
+        }
+    }
+
+    public static class Audit {
+
+        private int queueCapacity = 10000;
+
+        private int batchSize = 100;
+
+        private long flushIntervalInMs = 1000;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.CALLER_RUNS;
+
+        private long closeTimeoutInSeconds = 30;
+
+        private int retentionInDays = 90;
+
+        private int partitionsAhead = 3;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushIntervalInMs() {
+            return flushIntervalInMs;
+        }
+
+        public void setFlushIntervalInMs(long flushIntervalInMs) {
+            this.flushIntervalInMs = flushIntervalInMs;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public long getCloseTimeoutInSeconds() {
+            return closeTimeoutInSeconds;
+        }
+
+        public void setCloseTimeoutInSeconds(long closeTimeoutInSeconds) {
+            this.closeTimeoutInSeconds = closeTimeoutInSeconds;
+        }
+
+        public int getRetentionInDays() {
+            return retentionInDays;
+        }
+
+        public void setRetentionInDays(int retentionInDays) {
+            this.retentionInDays = retentionInDays;
+        }
+
+        public int getPartitionsAhead() {
+            return partitionsAhead;
+        }
+
+        public void setPartitionsAhead(int partitionsAhead) {
+            this.partitionsAhead = partitionsAhead;
+        }
+
+        /**
+         * What to do with an audit event when the queue is full.
+         */
+        public enum OverflowPolicy {
+
+            /** Write the event synchronously, in the calling thread */
+            CALLER_RUNS,
+
+            /** Drop the event */
+            DISCARD
+        }
+    }
+
+    public static class Changes {
+
+        private int historySize = 1000;
+
+        private int subscriberQueueCapacity = 256;
+
+        private long emitterTimeoutInMs = 30 * 60 * 1000;
+
+        private long heartbeatIntervalInMs = 15000;
+
+        private long searchValidatorDelayInMs = 5000;
+
+        private int tombstoneRetentionInDays = 30;
+
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        public void setHistorySize(int historySize) {
+            this.historySize = historySize;
+        }
+
+        public int getSubscriberQueueCapacity() {
+            return subscriberQueueCapacity;
+        }
+
+        public void setSubscriberQueueCapacity(int subscriberQueueCapacity) {
+            this.subscriberQueueCapacity = subscriberQueueCapacity;
+        }
+
+        public long getEmitterTimeoutInMs() {
+            return emitterTimeoutInMs;
+        }
+
+        public void setEmitterTimeoutInMs(long emitterTimeoutInMs) {
+            this.emitterTimeoutInMs = emitterTimeoutInMs;
+        }
+
+        public long getHeartbeatIntervalInMs() {
+            return heartbeatIntervalInMs;
+        }
+
+        public void setHeartbeatIntervalInMs(long heartbeatIntervalInMs) {
+            this.heartbeatIntervalInMs = heartbeatIntervalInMs;
+        }
+
+        public long getSearchValidatorDelayInMs() {
+            return searchValidatorDelayInMs;
+        }
+
+        public void setSearchValidatorDelayInMs(long searchValidatorDelayInMs) {
+            this.searchValidatorDelayInMs = searchValidatorDelayInMs;
+        }
+
+        public int getTombstoneRetentionInDays() {
+            return tombstoneRetentionInDays;
+        }
+
+        public void setTombstoneRetentionInDays(int tombstoneRetentionInDays) {
+            this.tombstoneRetentionInDays = tombstoneRetentionInDays;
+        }
+    }
+
+    public static class Replica {
+
+        private boolean enabled = false;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+        private long maxLagInMs = 1000;
+
+        private long lagCheckIntervalInMs = 5000;
+
+        private String lagQuery = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) end";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public long getMaxLagInMs() {
+            return maxLagInMs;
+        }
+
+        public void setMaxLagInMs(long maxLagInMs) {
+            this.maxLagInMs = maxLagInMs;
+        }
+
+        public long getLagCheckIntervalInMs() {
+            return lagCheckIntervalInMs;
+        }
+
+        public void setLagCheckIntervalInMs(long lagCheckIntervalInMs) {
+            this.lagCheckIntervalInMs = lagCheckIntervalInMs;
+        }
+
+        public String getLagQuery() {
+            return lagQuery;
+        }
+
+        public void setLagQuery(String lagQuery) {
+            this.lagQuery = lagQuery;
+        }
+    }
+
+    public static class BulkImport {
+
+        private int batchSize = 1000;
+
+        private int validationChunks = 4;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getValidationChunks() {
+            return validationChunks;
+        }
+
+        public void setValidationChunks(int validationChunks) {
+            this.validationChunks = validationChunks;
+        }
+    }
+
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+
+        private int backupCount = 1;
+
+        private int writeDelayInSeconds = 1;
+
+        private int writeBatchSize = 500;
+
+        private boolean writeCoalescing = true;
+
+        private int maxEntries = 100000;
+
+        private int flushTimeoutInSeconds = 30;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBackupCount() {
+            return backupCount;
+        }
+
+        public void setBackupCount(int backupCount) {
+            this.backupCount = backupCount;
+        }
+
+        public int getWriteDelayInSeconds() {
+            return writeDelayInSeconds;
+        }
+
+        public void setWriteDelayInSeconds(int writeDelayInSeconds) {
+            this.writeDelayInSeconds = writeDelayInSeconds;
+        }
+
+        public int getWriteBatchSize() {
+            return writeBatchSize;
+        }
+
+        public void setWriteBatchSize(int writeBatchSize) {
+            this.writeBatchSize = writeBatchSize;
+        }
+
+        public boolean isWriteCoalescing() {
+            return writeCoalescing;
+        }
+
+        public void setWriteCoalescing(boolean writeCoalescing) {
+            this.writeCoalescing = writeCoalescing;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getFlushTimeoutInSeconds() {
+            return flushTimeoutInSeconds;
+        }
+
+        public void setFlushTimeoutInSeconds(int flushTimeoutInSeconds) {
+            this.flushTimeoutInSeconds = flushTimeoutInSeconds;
+        }
+    }
+
+    public static class LocalCache {
+
+        private boolean enabled = true;
+
+        private int maxEntries = 10000;
+
+        private int windowPercent = 1;
+
+        private int timeToLiveSeconds = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getWindowPercent() {
+            return windowPercent;
+        }
+
+        public void setWindowPercent(int windowPercent) {
+            this.windowPercent = windowPercent;
+        }
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    public static class WarmUp {
+
+        private boolean enabled = true;
+
+        private final Cache cache = new Cache();
+
+        private final Jit jit = new Jit();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public Jit getJit() {
+            return jit;
+        }
+
+        public static class Cache {
+
+            private int timeoutInSeconds = 60;
+
+            private int maxComponents = 10000;
+
+            private int batchSize = 500;
+
+            private List<String> searchQueries = new ArrayList<>();
+
+            public int getTimeoutInSeconds() {
+                return timeoutInSeconds;
+            }
+
+            public void setTimeoutInSeconds(int timeoutInSeconds) {
+                this.timeoutInSeconds = timeoutInSeconds;
+            }
+
+            public int getMaxComponents() {
+                return maxComponents;
+            }
+
+            public void setMaxComponents(int maxComponents) {
+                this.maxComponents = maxComponents;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public List<String> getSearchQueries() {
+                return searchQueries;
+            }
+
+            public void setSearchQueries(List<String> searchQueries) {
+                this.searchQueries = searchQueries;
+            }
+        }
+
+        public static class Jit {
+
+            private boolean enabled = true;
+
+            private int timeBudgetInSeconds = 30;
+
+            private int iterations = 10000;
+
+            private int pageSize = 20;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getTimeBudgetInSeconds() {
+                return timeBudgetInSeconds;
+            }
+
+            public void setTimeBudgetInSeconds(int timeBudgetInSeconds) {
+                this.timeBudgetInSeconds = timeBudgetInSeconds;
+            }
+
+            public int getIterations() {
+                return iterations;
+            }
+
+            public void setIterations(int iterations) {
+                this.iterations = iterations;
+            }
+
+            public int getPageSize() {
+                return pageSize;
+            }
+
+            public void setPageSize(int pageSize) {
+                this.pageSize = pageSize;
+            }
+        }
+    }
+
+    public static class Shutdown {
+
+        private int deregistrationDelayInSeconds = 40;
+
+        private int drainPeriodInSeconds = 30;
+
+        private int executorTimeoutInSeconds = 30;
+
+        public int getDeregistrationDelayInSeconds() {
+            return deregistrationDelayInSeconds;
+        }
+
+        public void setDeregistrationDelayInSeconds(int deregistrationDelayInSeconds) {
+            this.deregistrationDelayInSeconds = deregistrationDelayInSeconds;
+        }
+
+        public int getDrainPeriodInSeconds() {
+            return drainPeriodInSeconds;
+        }
+
+        public void setDrainPeriodInSeconds(int drainPeriodInSeconds) {
+            this.drainPeriodInSeconds = drainPeriodInSeconds;
+        }
+
+        public int getExecutorTimeoutInSeconds() {
+            return executorTimeoutInSeconds;
+        }
+
+        public void setExecutorTimeoutInSeconds(int executorTimeoutInSeconds) {
+            this.executorTimeoutInSeconds = executorTimeoutInSeconds;
+        }
+    }
+
+    public static class HotKeys {
+
+        private int size = 1000;
+
+        private int expectedKeys = 100000;
+
+        private long halfLifeInMs = 300000;
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getExpectedKeys() {
+            return expectedKeys;
+        }
+
+        public void setExpectedKeys(int expectedKeys) {
+            this.expectedKeys = expectedKeys;
+        }
+
+        public long getHalfLifeInMs() {
+            return halfLifeInMs;
+        }
+
+        public void setHalfLifeInMs(long halfLifeInMs) {
+            this.halfLifeInMs = halfLifeInMs;
+        }
+    }
 }
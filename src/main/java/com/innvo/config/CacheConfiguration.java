@@ -3,13 +3,28 @@ package com.innvo.config;
 import io.github.jhipster.config.JHipsterConstants;
 import io.github.jhipster.config.JHipsterProperties;
 
+import com.innvo.config.cache.TwoLevelCacheManager;
+import com.innvo.config.hazelcast.ComponentChangeSerializer;
+import com.innvo.config.hazelcast.ComponentSerializer;
+import com.innvo.config.hazelcast.HibernateBasicTypeSerializer;
+import com.innvo.domain.Component;
+import com.innvo.domain.ComponentChange;
+import com.innvo.service.ComponentService;
+import com.innvo.service.ComponentWriteBehindService;
+
+import com.codahale.metrics.MetricRegistry;
 import com.hazelcast.config.Config;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.EvictionPolicy;
 import com.hazelcast.config.MaxSizeConfig;
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.core.MapStore;
 
+import org.hibernate.type.BasicType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,6 +39,10 @@ import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
 
 import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Configuration
 @EnableCaching
@@ -39,10 +58,36 @@ public class CacheConfiguration {
 
     private final ServerProperties serverProperties;
 
-    public CacheConfiguration(Environment env, DiscoveryClient discoveryClient, ServerProperties serverProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    private HazelcastInstance hazelcastInstance;
+
+    public CacheConfiguration(Environment env, DiscoveryClient discoveryClient, ServerProperties serverProperties,
+            ApplicationProperties applicationProperties) {
         this.env = env;
         this.discoveryClient = discoveryClient;
         this.serverProperties = serverProperties;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Persist the components written behind, before {@link GracefulShutdown} shuts down the Hazelcast instance and
+     * the data source.
+     */
+    public void flushWriteBehind() {
+        if (hazelcastInstance != null && applicationProperties.getWriteBehind().isEnabled()) {
+            int timeout = applicationProperties.getWriteBehind().getFlushTimeoutInSeconds();
+            log.info("Persisting the components written behind");
+            try {
+                CompletableFuture.runAsync(hazelcastInstance.getMap(ComponentWriteBehindService.MAP_NAME)::flush)
+                    .get(timeout, TimeUnit.SECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                log.error("Could not persist the components written behind within {} s, they are lost unless " +
+                    "a backup member is still running: {}", timeout, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     @PreDestroy
@@ -52,14 +97,20 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public CacheManager cacheManager(HazelcastInstance hazelcastInstance) {
+    public CacheManager cacheManager(HazelcastInstance hazelcastInstance, MetricRegistry metricRegistry) {
         log.debug("Starting HazelcastCacheManager");
         CacheManager cacheManager = new com.hazelcast.spring.cache.HazelcastCacheManager(hazelcastInstance);
+        if (applicationProperties.getLocalCache().isEnabled()) {
+            log.debug("Adding a local cache in front of each Hazelcast cache");
+            cacheManager = new TwoLevelCacheManager(cacheManager, hazelcastInstance,
+                applicationProperties.getLocalCache(), metricRegistry);
+        }
         return cacheManager;
     }
 
     @Bean
-    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties,
+            @Lazy MapStore<Long, Component> componentMapStore) {
         log.debug("Configuring Hazelcast");
         Config config = new Config();
         config.setInstanceName("adapcomponent");
@@ -91,9 +142,33 @@ public class CacheConfiguration {
                 config.getNetworkConfig().getJoin().getTcpIpConfig().addMember(clusterMember);
             }
         }
+        config.setSerializationConfig(initializeSerializationConfig());
         config.getMapConfigs().put("default", initializeDefaultMapConfig());
         config.getMapConfigs().put("com.innvo.domain.*", initializeDomainMapConfig(jHipsterProperties));
-        return Hazelcast.newHazelcastInstance(config);
+        config.getMapConfigs().put(ComponentService.CACHE_NAME, initializeDomainMapConfig(jHipsterProperties));
+        // Shut down by GracefulShutdown, once the requests are drained and the pending writes are persisted
+        config.setProperty("hazelcast.shutdownhook.enabled", "false");
+        if (applicationProperties.getWriteBehind().isEnabled()) {
+            config.getMapConfigs().put(ComponentWriteBehindService.MAP_NAME,
+                initializeWriteBehindMapConfig(componentMapStore));
+        }
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        return hazelcastInstance;
+    }
+
+    /**
+     * Serialize the shared values field by field instead of with Java serialization. The Hibernate cache entries
+     * already have their own serializer, but their keys hold the Hibernate type of the entity id.
+     */
+    private SerializationConfig initializeSerializationConfig() {
+        SerializationConfig serializationConfig = new SerializationConfig();
+        serializationConfig.addSerializerConfig(new SerializerConfig()
+            .setTypeClass(Component.class).setImplementation(new ComponentSerializer()));
+        serializationConfig.addSerializerConfig(new SerializerConfig()
+            .setTypeClass(ComponentChange.class).setImplementation(new ComponentChangeSerializer()));
+        serializationConfig.addSerializerConfig(new SerializerConfig()
+            .setTypeClass(BasicType.class).setImplementation(new HibernateBasicTypeSerializer()));
+        return serializationConfig;
     }
 
     private MapConfig initializeDefaultMapConfig() {
@@ -126,6 +201,25 @@ public class CacheConfiguration {
         return mapConfig;
     }
 
+    private MapConfig initializeWriteBehindMapConfig(MapStore<Long, Component> componentMapStore) {
+        ApplicationProperties.WriteBehind writeBehind = applicationProperties.getWriteBehind();
+        MapConfig mapConfig = new MapConfig(ComponentWriteBehindService.MAP_NAME);
+        // Pending writes only survive the loss of a member through their backups
+        mapConfig.setBackupCount(writeBehind.getBackupCount());
+        mapConfig.setEvictionPolicy(EvictionPolicy.LRU);
+        mapConfig.setMaxSizeConfig(new MaxSizeConfig(writeBehind.getMaxEntries(), MaxSizeConfig.MaxSizePolicy.PER_NODE));
+        MapStoreConfig mapStoreConfig = new MapStoreConfig();
+        mapStoreConfig.setEnabled(true);
+        // The store is only resolved when the map is first used, once the database is configured
+        mapStoreConfig.setImplementation(componentMapStore);
+        mapStoreConfig.setWriteDelaySeconds(writeBehind.getWriteDelayInSeconds());
+        mapStoreConfig.setWriteBatchSize(writeBehind.getWriteBatchSize());
+        mapStoreConfig.setWriteCoalescing(writeBehind.isWriteCoalescing());
+        mapStoreConfig.setInitialLoadMode(MapStoreConfig.InitialLoadMode.LAZY);
+        mapConfig.setMapStoreConfig(mapStoreConfig);
+        return mapConfig;
+    }
+
     private MapConfig initializeDomainMapConfig(JHipsterProperties jHipsterProperties) {
         MapConfig mapConfig = new MapConfig();
         mapConfig.setTimeToLiveSeconds(jHipsterProperties.getCache().getHazelcast().getTimeToLiveSeconds());
@@ -1,13 +1,52 @@
 package com.innvo.config;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.ElasticsearchException;
+import org.springframework.data.elasticsearch.core.DefaultResultMapper;
 import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.aggregation.AggregatedPage;
+import org.springframework.data.elasticsearch.core.aggregation.impl.AggregatedPageImpl;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.StringUtils;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,13 +54,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Configuration
 public class ElasticsearchConfiguration {
 
+    private final Logger log = LoggerFactory.getLogger(ElasticsearchConfiguration.class);
+
+    @Bean
+    public CustomEntityMapper customEntityMapper(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return new CustomEntityMapper(jackson2ObjectMapperBuilder.build());
+    }
+
     @Bean
-    public ElasticsearchTemplate elasticsearchTemplate(Client client, Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
-        return new ElasticsearchTemplate(client, new CustomEntityMapper(jackson2ObjectMapperBuilder.createXmlMapper(false).build()));
+    public CustomElasticsearchTemplate elasticsearchTemplate(Client client, CustomEntityMapper customEntityMapper) {
+        ElasticsearchConverter converter = new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+        return new CustomElasticsearchTemplate(client, converter, customEntityMapper);
     }
 
+    /**
+     * Jackson based entity mapper.
+     * <p>
+     * Besides the String based {@link EntityMapper} contract, it can write documents straight into a
+     * {@link BytesReference} and read them back from the raw source bytes of a hit, so that documents are
+     * not copied between their char and byte forms on the index and search paths.
+     */
     public class CustomEntityMapper implements EntityMapper {
 
+        private static final int DEFAULT_DOCUMENT_SIZE = 256;
+
         private ObjectMapper objectMapper;
 
         public CustomEntityMapper(ObjectMapper objectMapper) {
@@ -39,5 +95,207 @@ public class ElasticsearchConfiguration {
         public <T> T mapToObject(String source, Class<T> clazz) throws IOException {
             return objectMapper.readValue(source, clazz);
         }
+
+        /**
+         * Serialize an object as UTF-8 JSON directly into a byte buffer.
+         *
+         * @param object the object to serialize
+         * @return the JSON source as bytes
+         * @throws IOException if the object cannot be serialized
+         */
+        public BytesReference mapToBytes(Object object) throws IOException {
+            BytesStreamOutput out = new BytesStreamOutput(DEFAULT_DOCUMENT_SIZE);
+            objectMapper.writeValue(out, object);
+            return out.bytes();
+        }
+
+        /**
+         * Deserialize an object from UTF-8 JSON source bytes, without going through a String.
+         *
+         * @param source the JSON source
+         * @param clazz the type of the object to read
+         * @return the deserialized object
+         * @throws IOException if the source cannot be parsed
+         */
+        public <T> T mapToObject(BytesReference source, Class<T> clazz) throws IOException {
+            if (source.hasArray()) {
+                return objectMapper.readValue(source.array(), source.arrayOffset(), source.length(), clazz);
+            }
+            return objectMapper.readValue(source.streamInput(), clazz);
+        }
+    }
+
+    /**
+     * Result mapper reading hits from their source bytes.
+     * <p>
+     * Hits without a source (for instance when only some fields are requested) are handled by the
+     * {@link DefaultResultMapper}.
+     */
+    public class CustomResultMapper extends DefaultResultMapper {
+
+        private final CustomEntityMapper entityMapper;
+
+        public CustomResultMapper(MappingContext<? extends ElasticsearchPersistentEntity<?>, ElasticsearchPersistentProperty> mappingContext,
+                                  CustomEntityMapper entityMapper) {
+            super(mappingContext, entityMapper);
+            this.entityMapper = entityMapper;
+        }
+
+        @Override
+        public <T> AggregatedPage<T> mapResults(SearchResponse response, Class<T> clazz, Pageable pageable) {
+            List<T> results = new ArrayList<>(response.getHits().getHits().length);
+            for (SearchHit hit : response.getHits()) {
+                if (hit == null) {
+                    continue;
+                }
+                if (hit.sourceRef() == null) {
+                    return super.mapResults(response, clazz, pageable);
+                }
+                results.add(mapBytes(hit.sourceRef(), clazz));
+            }
+            return new AggregatedPageImpl<>(results, pageable, response.getHits().getTotalHits(), response.getAggregations());
+        }
+
+        @Override
+        public <T> T mapResult(GetResponse response, Class<T> clazz) {
+            if (!response.isExists() || response.isSourceEmpty()) {
+                return super.mapResult(response, clazz);
+            }
+            return mapBytes(response.getSourceAsBytesRef(), clazz);
+        }
+
+        @Override
+        public <T> LinkedList<T> mapResults(MultiGetResponse responses, Class<T> clazz) {
+            LinkedList<T> list = new LinkedList<>();
+            for (MultiGetItemResponse response : responses.getResponses()) {
+                if (!response.isFailed() && response.getResponse().isExists()) {
+                    list.add(mapResult(response.getResponse(), clazz));
+                }
+            }
+            return list;
+        }
+
+        private <T> T mapBytes(BytesReference source, Class<T> clazz) {
+            try {
+                return entityMapper.mapToObject(source, clazz);
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to map source [ " + source.toUtf8() + "] to class " + clazz.getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Elasticsearch template sending the source of index and bulk requests as bytes.
+     */
+    public class CustomElasticsearchTemplate extends ElasticsearchTemplate {
+
+        private final CustomEntityMapper entityMapper;
+
+        public CustomElasticsearchTemplate(Client client, ElasticsearchConverter converter, CustomEntityMapper entityMapper) {
+            super(client, converter, new CustomResultMapper(converter.getMappingContext(), entityMapper));
+            this.entityMapper = entityMapper;
+        }
+
+        @Override
+        public String index(IndexQuery query) {
+            if (query.getObject() == null) {
+                return super.index(query);
+            }
+            return prepareBytesIndex(query).execute().actionGet().getId();
+        }
+
+        @Override
+        public void bulkIndex(List<IndexQuery> queries) {
+            BulkRequestBuilder bulkRequest = getClient().prepareBulk();
+            for (IndexQuery query : queries) {
+                bulkRequest.add(query.getObject() == null ? prepareStringIndex(query) : prepareBytesIndex(query));
+            }
+            BulkResponse bulkResponse = bulkRequest.execute().actionGet();
+            if (bulkResponse.hasFailures()) {
+                Map<String, String> failedDocuments = new HashMap<>();
+                for (BulkItemResponse item : bulkResponse.getItems()) {
+                    if (item.isFailed()) {
+                        failedDocuments.put(item.getId(), item.getFailureMessage());
+                    }
+                }
+                throw new ElasticsearchException(
+                    "Bulk indexing has failures. Use ElasticsearchException.getFailedDocuments() for detailed messages [" +
+                        failedDocuments + "]", failedDocuments);
+            }
+        }
+
+        /**
+         * Search for entities, with a time limit and a limit on the number of documents collected per shard.
+         *
+         * @param query the query
+         * @param pageable the pagination information
+         * @param clazz the entity class
+         * @param timeout the search timeout, after which the hits collected so far are returned
+         * @param terminateAfter the maximum number of documents to collect per shard
+         * @return the page of entities
+         */
+        public <T> Page<T> search(QueryBuilder query, Pageable pageable, Class<T> clazz, TimeValue timeout, int terminateAfter) {
+            ElasticsearchPersistentEntity<?> persistentEntity = getPersistentEntityFor(clazz);
+            SearchRequestBuilder searchRequest = getClient().prepareSearch(persistentEntity.getIndexName())
+                .setTypes(persistentEntity.getIndexType())
+                .setQuery(query)
+                .setFrom(pageable.getOffset())
+                .setSize(pageable.getPageSize())
+                .setTimeout(timeout)
+                .setTerminateAfter(terminateAfter);
+            if (pageable.getSort() != null) {
+                for (Sort.Order order : pageable.getSort()) {
+                    searchRequest.addSort(SortBuilders.fieldSort(order.getProperty())
+                        .order(order.isAscending() ? SortOrder.ASC : SortOrder.DESC));
+                }
+            }
+            SearchResponse response = searchRequest.execute().actionGet();
+            if (Boolean.TRUE.equals(response.isTimedOut()) || Boolean.TRUE.equals(response.isTerminatedEarly())) {
+                log.debug("Search on {} returned partial results, timed out: {}, terminated early: {}",
+                    persistentEntity.getIndexName(), response.isTimedOut(), response.isTerminatedEarly());
+            }
+            return getResultsMapper().mapResults(response, clazz, pageable);
+        }
+
+        /**
+         * Prepare an index request whose source is serialized straight into bytes.
+         *
+         * @param query the query holding the object to index
+         * @return the index request builder
+         */
+        public IndexRequestBuilder prepareBytesIndex(IndexQuery query) {
+            Object object = query.getObject();
+            ElasticsearchPersistentEntity<?> persistentEntity = getPersistentEntityFor(object.getClass());
+            String id = query.getId();
+            if (id == null && persistentEntity.hasIdProperty()) {
+                Object idValue = persistentEntity.getPropertyAccessor(object).getProperty(persistentEntity.getIdProperty());
+                id = idValue == null ? null : idValue.toString();
+            }
+            // Like ElasticsearchTemplate, an index name or type left blank is the one of the entity class
+            IndexRequestBuilder indexRequestBuilder = prepareRequest(query,
+                StringUtils.hasText(query.getIndexName()) ? query.getIndexName() : persistentEntity.getIndexName(),
+                StringUtils.hasText(query.getType()) ? query.getType() : persistentEntity.getIndexType(), id);
+            try {
+                return indexRequestBuilder.setSource(entityMapper.mapToBytes(object));
+            } catch (IOException e) {
+                throw new ElasticsearchException("failed to index the document [id: " + id + "]", e);
+            }
+        }
+
+        private IndexRequestBuilder prepareStringIndex(IndexQuery query) {
+            return prepareRequest(query, query.getIndexName(), query.getType(), query.getId()).setSource(query.getSource());
+        }
+
+        private IndexRequestBuilder prepareRequest(IndexQuery query, String indexName, String type, String id) {
+            IndexRequestBuilder indexRequestBuilder = getClient().prepareIndex(indexName, type, id);
+            if (query.getVersion() != null) {
+                indexRequestBuilder.setVersion(query.getVersion());
+                indexRequestBuilder.setVersionType(VersionType.EXTERNAL);
+            }
+            if (query.getParentId() != null) {
+                indexRequestBuilder.setParent(query.getParentId());
+            }
+            return indexRequestBuilder;
+        }
     }
 }
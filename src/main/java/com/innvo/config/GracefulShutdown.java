@@ -0,0 +1,140 @@
+package com.innvo.config;
+
+import com.innvo.repository.AsyncAuditEventWriter;
+import com.innvo.service.BulkIndexService;
+import com.innvo.service.ComponentChangeService;
+
+import com.netflix.discovery.EurekaClient;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Shuts the instance down in order, as soon as the application context starts closing, while all the beans are
+ * still running:
+ * <ol>
+ * <li>cancel the scheduled jobs, such as the replica lag check, the hot key refresh and the audit purge;</li>
+ * <li>deregister from Eureka, then keep serving for application.shutdown.deregistration-delay-in-seconds, until
+ * clients have fetched their registry and refreshed their Ribbon server list, and stopped routing here;</li>
+ * <li>answer new requests with 503 (Service Unavailable), so that client-side load balancers retry them on another
+ * instance, and wait for the requests in progress, the change feed subscriptions being completed first;</li>
+ * <li>run the tasks queued on the async executor;</li>
+ * <li>persist the components written behind, then send the pending search index and audit batches;</li>
+ * <li>shut down Hazelcast and close the connection pools.</li>
+ * </ol>
+ * Each step is bounded in time. The beans are then destroyed as usual, which finds them already closed.
+ */
+@Component
+public class GracefulShutdown {
+
+    private final Logger log = LoggerFactory.getLogger(GracefulShutdown.class);
+
+    private final ApplicationContext applicationContext;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ObjectProvider<ScheduledAnnotationBeanPostProcessor> scheduledAnnotationProcessor;
+
+    private final ObjectProvider<EurekaClient> eurekaClient;
+
+    private final UndertowGracefulShutdown undertowGracefulShutdown;
+
+    private final ComponentChangeService componentChangeService;
+
+    private final Executor taskExecutor;
+
+    private final CacheConfiguration cacheConfiguration;
+
+    private final BulkIndexService bulkIndexService;
+
+    private final AsyncAuditEventWriter asyncAuditEventWriter;
+
+    private final ObjectProvider<List<HikariDataSource>> hikariDataSources;
+
+    public GracefulShutdown(ApplicationContext applicationContext, ApplicationProperties applicationProperties,
+            ObjectProvider<ScheduledAnnotationBeanPostProcessor> scheduledAnnotationProcessor,
+            ObjectProvider<EurekaClient> eurekaClient, UndertowGracefulShutdown undertowGracefulShutdown,
+            ComponentChangeService componentChangeService, @Qualifier("taskExecutor") Executor taskExecutor,
+            CacheConfiguration cacheConfiguration, BulkIndexService bulkIndexService,
+            AsyncAuditEventWriter asyncAuditEventWriter, ObjectProvider<List<HikariDataSource>> hikariDataSources) {
+        this.applicationContext = applicationContext;
+        this.applicationProperties = applicationProperties;
+        this.scheduledAnnotationProcessor = scheduledAnnotationProcessor;
+        this.eurekaClient = eurekaClient;
+        this.undertowGracefulShutdown = undertowGracefulShutdown;
+        this.componentChangeService = componentChangeService;
+        this.taskExecutor = taskExecutor;
+        this.cacheConfiguration = cacheConfiguration;
+        this.bulkIndexService = bulkIndexService;
+        this.asyncAuditEventWriter = asyncAuditEventWriter;
+        this.hikariDataSources = hikariDataSources;
+    }
+
+    @EventListener
+    public void onContextClosed(ContextClosedEvent event) throws Exception {
+        // Child contexts, such as the Ribbon and Feign ones, publish their closing to this one too
+        if (event.getApplicationContext() != applicationContext) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        ScheduledAnnotationBeanPostProcessor scheduledJobs = scheduledAnnotationProcessor.getIfAvailable();
+        if (scheduledJobs != null) {
+            log.info("Shutting down: cancelling the scheduled jobs");
+            scheduledJobs.destroy();
+        }
+
+        EurekaClient client = eurekaClient.getIfAvailable();
+        if (client != null) {
+            int deregistrationDelay = applicationProperties.getShutdown().getDeregistrationDelayInSeconds();
+            log.info("Shutting down: deregistering from Eureka, and serving for {} s more", deregistrationDelay);
+            client.shutdown();
+            try {
+                Thread.sleep(deregistrationDelay * 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int drainPeriod = applicationProperties.getShutdown().getDrainPeriodInSeconds();
+        log.info("Shutting down: refusing new requests, and waiting up to {} s for the requests in progress",
+            drainPeriod);
+        componentChangeService.destroy();
+        try {
+            if (!undertowGracefulShutdown.drain(drainPeriod * 1000L)) {
+                log.warn("Requests still in progress after {} s", drainPeriod);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        log.info("Shutting down: running the queued async tasks");
+        if (taskExecutor instanceof DisposableBean) {
+            ((DisposableBean) taskExecutor).destroy();
+        }
+
+        log.info("Shutting down: sending the pending writes");
+        cacheConfiguration.flushWriteBehind();
+        bulkIndexService.destroy();
+        asyncAuditEventWriter.destroy();
+
+        log.info("Shutting down: closing Hazelcast and the connection pools");
+        cacheConfiguration.destroy();
+        List<HikariDataSource> dataSources = hikariDataSources.getIfAvailable();
+        for (HikariDataSource dataSource : dataSources != null ? dataSources : Collections.<HikariDataSource>emptyList()) {
+            dataSource.close();
+        }
+        log.info("Shut down in {} ms", System.currentTimeMillis() - start);
+    }
+}
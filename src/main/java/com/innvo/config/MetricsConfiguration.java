@@ -1,5 +1,7 @@
 package com.innvo.config;
 
+import com.innvo.domain.IdAllocationCounters;
+
 import io.github.jhipster.config.JHipsterProperties;
 import io.github.jhipster.config.metrics.SpectatorLogMetricWriter;
 
@@ -10,8 +12,10 @@ import org.springframework.boot.actuate.metrics.writer.MetricWriter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.netflix.metrics.spectator.SpectatorMetricReader;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
 import com.codahale.metrics.Slf4jReporter;
 import com.codahale.metrics.health.HealthCheckRegistry;
 import com.codahale.metrics.jvm.*;
@@ -25,6 +29,8 @@ import org.springframework.context.annotation.*;
 
 import javax.annotation.PostConstruct;
 import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -36,6 +42,9 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
     private static final String PROP_METRIC_REG_JVM_THREADS = "jvm.threads";
     private static final String PROP_METRIC_REG_JVM_FILES = "jvm.files";
     private static final String PROP_METRIC_REG_JVM_BUFFERS = "jvm.buffers";
+    private static final String PROP_METRIC_REG_IDS_SEQUENCE_CALLS = "ids.sequence-calls";
+    private static final String PROP_METRIC_REG_IDS_ALLOCATED = "ids.allocated";
+    private static final String PROP_METRIC_REG_IDS_SEQUENCE_CALLS_PER_ROW = "ids.sequence-calls-per-row";
     private final Logger log = LoggerFactory.getLogger(MetricsConfiguration.class);
 
     private MetricRegistry metricRegistry = new MetricRegistry();
@@ -44,15 +53,15 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
 
     private final JHipsterProperties jHipsterProperties;
 
-    private HikariDataSource hikariDataSource;
+    private List<HikariDataSource> hikariDataSources = Collections.emptyList();
 
     public MetricsConfiguration(JHipsterProperties jHipsterProperties) {
         this.jHipsterProperties = jHipsterProperties;
     }
 
     @Autowired(required = false)
-    public void setHikariDataSource(HikariDataSource hikariDataSource) {
-        this.hikariDataSource = hikariDataSource;
+    public void setHikariDataSources(List<HikariDataSource> hikariDataSources) {
+        this.hikariDataSources = hikariDataSources;
     }
 
     @Override
@@ -75,8 +84,17 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         metricRegistry.register(PROP_METRIC_REG_JVM_THREADS, new ThreadStatesGaugeSet());
         metricRegistry.register(PROP_METRIC_REG_JVM_FILES, new FileDescriptorRatioGauge());
         metricRegistry.register(PROP_METRIC_REG_JVM_BUFFERS, new BufferPoolMetricSet(ManagementFactory.getPlatformMBeanServer()));
-        if (hikariDataSource != null) {
-            log.debug("Monitoring the datasource");
+        log.debug("Registering id allocation gauges");
+        metricRegistry.register(PROP_METRIC_REG_IDS_SEQUENCE_CALLS, (Gauge<Long>) IdAllocationCounters::getSequenceCalls);
+        metricRegistry.register(PROP_METRIC_REG_IDS_ALLOCATED, (Gauge<Long>) IdAllocationCounters::getAllocatedIds);
+        metricRegistry.register(PROP_METRIC_REG_IDS_SEQUENCE_CALLS_PER_ROW, new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(IdAllocationCounters.getSequenceCalls(), IdAllocationCounters.getAllocatedIds());
+            }
+        });
+        for (HikariDataSource hikariDataSource : hikariDataSources) {
+            log.debug("Monitoring the datasource {}", hikariDataSource.getPoolName());
             hikariDataSource.setMetricRegistry(metricRegistry);
         }
         if (jHipsterProperties.getMetrics().getJmx().isEnabled()) {
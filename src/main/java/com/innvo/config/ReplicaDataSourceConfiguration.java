@@ -0,0 +1,115 @@
+package com.innvo.config;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Configures a read replica, used by the read-only transactions.
+ * <p>
+ * The primary and the replica have their own Hikari pool, named "primary" and "replica" in the metrics, and the
+ * replica pool takes the settings of the primary one, except for its URL, credentials and size. The replication
+ * lag is checked periodically, see {@link ReplicaRoutingDataSource} for the routing rules.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+    private static final String RECENT_WRITERS_MAP_NAME = "replicaRecentWriters";
+
+    private static final String METRIC_LAG = "datasource.replica.lag";
+    private static final String METRIC_REPLICA_READS = "datasource.routing.replica-reads";
+    private static final String METRIC_PRIMARY_READS = "datasource.routing.primary-reads";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaDataSourceConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    private JdbcTemplate replicaJdbcTemplate;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private volatile long lagInMs = -1;
+
+    public ReplicaDataSourceConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = (HikariDataSource) dataSourceProperties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource) {
+        ApplicationProperties.Replica replica = applicationProperties.getReplica();
+        HikariDataSource dataSource = new HikariDataSource();
+        primaryDataSource.copyState(dataSource);
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername());
+        dataSource.setPassword(replica.getPassword());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            @Qualifier("replicaDataSource") HikariDataSource replicaDataSource, HazelcastInstance hazelcastInstance,
+            MetricRegistry metricRegistry) {
+        ApplicationProperties.Replica replica = applicationProperties.getReplica();
+        log.info("Routing read-only transactions to the replica at {}", replica.getUrl());
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+            hazelcastInstance.getMap(RECENT_WRITERS_MAP_NAME), replica.getMaxLagInMs(),
+            metricRegistry.meter(METRIC_REPLICA_READS), metricRegistry.meter(METRIC_PRIMARY_READS));
+        routingDataSource.afterPropertiesSet();
+        replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        metricRegistry.register(METRIC_LAG, (Gauge<Long>) () -> lagInMs);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        // Set explicitly, so that no connection is taken outside of a transaction to read them
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.setTargetDataSource(routingDataSource);
+        return dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${application.replica.lag-check-interval-in-ms:5000}")
+    public void checkReplicationLag() {
+        long maxLagInMs = applicationProperties.getReplica().getMaxLagInMs();
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(applicationProperties.getReplica().getLagQuery(), Number.class);
+            lagInMs = lag == null ? 0 : lag.longValue();
+        } catch (RuntimeException e) {
+            log.warn("Could not read the replication lag, reading from the primary: {}", e.toString());
+            lagInMs = -1;
+        }
+        boolean inSync = lagInMs >= 0 && lagInMs <= maxLagInMs;
+        if (!inSync) {
+            log.debug("Replica lags {} ms, reading from the primary", lagInMs);
+        }
+        routingDataSource.setReplicaInSync(inSync);
+        routingDataSource.expireRecentWriters();
+    }
+}
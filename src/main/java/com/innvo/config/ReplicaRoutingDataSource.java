@@ -0,0 +1,133 @@
+package com.innvo.config;
+
+import com.innvo.security.SecurityUtils;
+
+import com.codahale.metrics.Meter;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes read-only transactions to the replica, and everything else to the primary.
+ * <p>
+ * The route is chosen when the transaction gets its connection, so this data source must be wrapped in a
+ * LazyConnectionDataSourceProxy: the read-only flag of the transaction is only known after it began.
+ * <p>
+ * Read-only transactions still go to the primary while the replica lags more than the tolerated replication lag,
+ * and for that long after the current user committed a write, so that users read their own writes. The users who
+ * wrote recently are published in a Hazelcast map, so this holds whichever instance serves their next read, and
+ * each instance keeps a local copy from the map events, so that reads never wait for a remote call. A read served by
+ * another instance right after the write may still go to the replica until the event arrives.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final IMap<String, Boolean> recentWriters;
+
+    private final ConcurrentMap<String, Long> localRecentWriters = new ConcurrentHashMap<>();
+
+    private final long maxLagInMs;
+
+    private final Meter replicaReads;
+
+    private final Meter primaryReads;
+
+    private volatile boolean replicaInSync;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, IMap<String, Boolean> recentWriters,
+            long maxLagInMs, Meter replicaReads, Meter primaryReads) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.recentWriters = recentWriters;
+        this.maxLagInMs = maxLagInMs;
+        this.replicaReads = replicaReads;
+        this.primaryReads = primaryReads;
+        recentWriters.addEntryListener(new RecentWriterListener(), false);
+    }
+
+    /**
+     * Set whether the replication lag of the replica is within the tolerated lag.
+     *
+     * @param replicaInSync true to route read-only transactions to the replica
+     */
+    public void setReplicaInSync(boolean replicaInSync) {
+        this.replicaInSync = replicaInSync;
+    }
+
+    /**
+     * Forget the local copies of the users whose writes are older than the tolerated replication lag.
+     */
+    public void expireRecentWriters() {
+        long now = System.currentTimeMillis();
+        localRecentWriters.values().removeIf(until -> until <= now);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        String login = SecurityUtils.getCurrentUserLogin();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (login != null) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        markRecentWriter(login);
+                        recentWriters.set(login, Boolean.TRUE, maxLagInMs, TimeUnit.MILLISECONDS);
+                    }
+                });
+            }
+            return Route.PRIMARY;
+        }
+        if (!replicaInSync || (login != null && isRecentWriter(login))) {
+            primaryReads.mark();
+            return Route.PRIMARY;
+        }
+        replicaReads.mark();
+        return Route.REPLICA;
+    }
+
+    private void markRecentWriter(String login) {
+        localRecentWriters.put(login, System.currentTimeMillis() + maxLagInMs);
+    }
+
+    private boolean isRecentWriter(String login) {
+        Long until = localRecentWriters.get(login);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Copies the writes of the users, made on any instance, in the local recent writers.
+     */
+    private class RecentWriterListener implements EntryAddedListener<String, Boolean>,
+            EntryUpdatedListener<String, Boolean> {
+
+        @Override
+        public void entryAdded(EntryEvent<String, Boolean> event) {
+            markRecentWriter(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, Boolean> event) {
+            markRecentWriter(event.getKey());
+        }
+    }
+}
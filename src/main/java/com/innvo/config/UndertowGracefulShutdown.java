@@ -0,0 +1,48 @@
+package com.innvo.config;
+
+import io.undertow.server.HandlerWrapper;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.handlers.GracefulShutdownHandler;
+import org.springframework.boot.context.embedded.ConfigurableEmbeddedServletContainer;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.undertow.UndertowEmbeddedServletContainerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the Undertow handler chain in a {@link GracefulShutdownHandler}, which tracks the requests in progress and,
+ * once shut down, answers the new ones with 503 (Service Unavailable).
+ */
+@Component
+public class UndertowGracefulShutdown implements EmbeddedServletContainerCustomizer, HandlerWrapper {
+
+    private volatile GracefulShutdownHandler handler;
+
+    @Override
+    public void customize(ConfigurableEmbeddedServletContainer container) {
+        if (container instanceof UndertowEmbeddedServletContainerFactory) {
+            ((UndertowEmbeddedServletContainerFactory) container).addDeploymentInfoCustomizers(deploymentInfo ->
+                deploymentInfo.addOuterHandlerChainWrapper(this));
+        }
+    }
+
+    @Override
+    public HttpHandler wrap(HttpHandler next) {
+        handler = new GracefulShutdownHandler(next);
+        return handler;
+    }
+
+    /**
+     * Refuse the new requests, and wait for the ones in progress.
+     *
+     * @param timeoutInMs the maximum wait
+     * @return true if no request is in progress anymore, or Undertow is not used
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean drain(long timeoutInMs) throws InterruptedException {
+        if (handler == null) {
+            return true;
+        }
+        handler.shutdown();
+        return handler.awaitShutdown(timeoutInMs);
+    }
+}
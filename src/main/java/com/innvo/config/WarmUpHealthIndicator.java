@@ -0,0 +1,31 @@
+package com.innvo.config;
+
+import com.innvo.service.WarmUpService;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports OUT_OF_SERVICE until the warm-up is over, so that Eureka, through its health check, and load balancers do
+ * not send traffic to a cold instance.
+ */
+@Component
+public class WarmUpHealthIndicator extends AbstractHealthIndicator {
+
+    private final WarmUpService warmUpService;
+
+    public WarmUpHealthIndicator(WarmUpService warmUpService) {
+        this.warmUpService = warmUpService;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        if (warmUpService.isComplete()) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        warmUpService.getStates().forEach(builder::withDetail);
+    }
+}
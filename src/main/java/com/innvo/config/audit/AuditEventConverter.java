@@ -6,8 +6,7 @@ import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.time.ZoneId;
+import java.sql.Timestamp;
 import java.util.*;
 
 @Component
@@ -23,7 +22,8 @@ public class AuditEventConverter {
         if (persistentAuditEvents == null) {
             return Collections.emptyList();
         }
-        List<AuditEvent> auditEvents = new ArrayList<>();
+        List<AuditEvent> auditEvents = persistentAuditEvents instanceof Collection ?
+            new ArrayList<>(((Collection<?>) persistentAuditEvents).size()) : new ArrayList<>();
         for (PersistentAuditEvent persistentAuditEvent : persistentAuditEvents) {
             auditEvents.add(convertToAuditEvent(persistentAuditEvent));
         }
@@ -37,9 +37,9 @@ public class AuditEventConverter {
      * @return the converted list.
      */
     public AuditEvent convertToAuditEvent(PersistentAuditEvent persistentAuditEvent) {
-        Instant instant = persistentAuditEvent.getAuditEventDate().atZone(ZoneId.systemDefault()).toInstant();
-        return new AuditEvent(Date.from(instant), persistentAuditEvent.getPrincipal(),
-            persistentAuditEvent.getAuditEventType(), convertDataToObjects(persistentAuditEvent.getData()));
+        return new AuditEvent(Timestamp.valueOf(persistentAuditEvent.getAuditEventDate()),
+            persistentAuditEvent.getPrincipal(), persistentAuditEvent.getAuditEventType(),
+            convertDataToObjects(persistentAuditEvent.getData()));
     }
 
     /**
@@ -0,0 +1,98 @@
+package com.innvo.config.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Estimates how often keys were seen recently, in constant memory: a count-min sketch of four rows, whose counters
+ * are all halved once as many keys as ten times its width were counted, so that old popularity fades.
+ * <p>
+ * Counters are updated without locks; a concurrent halving may lose a few increments, which only makes the
+ * estimates a little lower. Callers may also halve them on a schedule, so that popularity fades with time too.
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int[] SEEDS = {0x97cb3127, 0xb0a8f2e5, 0x6a09e667, 0x3c6ef372};
+
+    private final AtomicIntegerArray counters;
+
+    private final int mask;
+
+    private final int width;
+
+    private final int sampleSize;
+
+    private final AtomicInteger additions = new AtomicInteger();
+
+    private volatile int halvings;
+
+    /**
+     * @param expectedKeys the number of distinct keys to tell apart, rounded up to a power of two for the width
+     */
+    public FrequencySketch(int expectedKeys) {
+        this.width = Integer.highestOneBit(Math.max(expectedKeys, 16) - 1) << 1;
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * Count one more occurrence of a key.
+     *
+     * @param key the key
+     */
+    public void increment(Object key) {
+        int hash = key.hashCode();
+        for (int row = 0; row < DEPTH; row++) {
+            counters.incrementAndGet(indexOf(hash, row));
+        }
+        if (additions.incrementAndGet() == sampleSize) {
+            halve();
+        }
+    }
+
+    /**
+     * Estimate the number of recent occurrences of a key, which may be overestimated but never underestimated,
+     * except by the aging.
+     *
+     * @param key the key
+     * @return the estimated frequency
+     */
+    public int frequency(Object key) {
+        int hash = key.hashCode();
+        int frequency = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters.get(indexOf(hash, row)));
+        }
+        return frequency;
+    }
+
+    /**
+     * Halve all the counters.
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+        additions.set(0);
+        halvings++;
+    }
+
+    /**
+     * Get the number of times the counters were halved, so that callers can tell when the estimates they kept are
+     * stale.
+     *
+     * @return the number of halvings
+     */
+    public int getHalvings() {
+        return halvings;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+        h ^= h >>> 16;
+        return row * width + (h & mask);
+    }
+}
@@ -0,0 +1,160 @@
+package com.innvo.config.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the most frequent keys, in constant memory: a {@link FrequencySketch} estimates the frequency of every key,
+ * and a small table of candidates keeps the keys with the highest estimates.
+ * <p>
+ * The candidates are split in stripes by hash, each one guarded by its own lock and holding its lowest estimate as
+ * an admission threshold. Recording a key only updates the sketch and reads the threshold without locking, unless
+ * the key is frequent enough to become a candidate, so the cost of a request does not depend on the number of keys.
+ * As the sketch is halved, the candidates that are no longer requested fade and are replaced.
+ *
+ * @param <K> the type of the keys
+ */
+public class HeavyHitters<K> {
+
+    private static final int STRIPES = 16;
+
+    private final FrequencySketch sketch;
+
+    private final int size;
+
+    private final List<Stripe> stripes = new ArrayList<>(STRIPES);
+
+    /**
+     * @param expectedKeys the number of distinct keys to tell apart, see {@link FrequencySketch}
+     * @param size the number of most frequent keys to track
+     */
+    public HeavyHitters(int expectedKeys, int size) {
+        this.sketch = new FrequencySketch(expectedKeys);
+        this.size = size;
+        // Hashing spreads the hottest keys evenly, twice as many candidates as needed leaves room for skew
+        int capacity = Math.max(2 * size / STRIPES, 16);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.add(new Stripe(capacity));
+        }
+    }
+
+    /**
+     * Count one more occurrence of a key.
+     *
+     * @param key the key
+     */
+    public void record(K key) {
+        sketch.increment(key);
+        int frequency = sketch.frequency(key);
+        int hash = key.hashCode();
+        Stripe stripe = stripes.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+        if (frequency > stripe.threshold || stripe.halvings != sketch.getHalvings()) {
+            stripe.offer(key, frequency);
+        }
+    }
+
+    /**
+     * Halve the estimated frequencies, so that the keys no longer requested fade.
+     */
+    public void decay() {
+        sketch.halve();
+    }
+
+    /**
+     * Get the most frequent keys, with their current estimated frequency.
+     *
+     * @return the keys, most frequent first
+     */
+    public List<Estimate<K>> getTop() {
+        List<Estimate<K>> estimates = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            for (K key : stripe.keys()) {
+                int frequency = sketch.frequency(key);
+                if (frequency > 0) {
+                    estimates.add(new Estimate<>(key, frequency));
+                }
+            }
+        }
+        estimates.sort(Comparator.comparingInt((Estimate<K> estimate) -> estimate.frequency).reversed());
+        return estimates.size() > size ? new ArrayList<>(estimates.subList(0, size)) : estimates;
+    }
+
+    /**
+     * A key, with its estimated frequency.
+     *
+     * @param <K> the type of the key
+     */
+    public static class Estimate<K> {
+
+        private final K key;
+
+        private final int frequency;
+
+        Estimate(K key, int frequency) {
+            this.key = key;
+            this.frequency = frequency;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public int getFrequency() {
+            return frequency;
+        }
+    }
+
+    private class Stripe {
+
+        private final Map<K, Integer> candidates = new HashMap<>();
+
+        private final int capacity;
+
+        private volatile int threshold;
+
+        private volatile int halvings;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void offer(K key, int frequency) {
+            if (halvings != sketch.getHalvings()) {
+                // The frequencies kept are stale: estimate them again
+                halvings = sketch.getHalvings();
+                candidates.replaceAll((candidate, ignored) -> sketch.frequency(candidate));
+                candidates.values().removeIf(candidateFrequency -> candidateFrequency == 0);
+            }
+            if (candidates.containsKey(key) || candidates.size() < capacity) {
+                candidates.put(key, frequency);
+            } else {
+                K victim = lowest();
+                if (candidates.get(victim) < frequency) {
+                    candidates.remove(victim);
+                    candidates.put(key, frequency);
+                }
+            }
+            threshold = candidates.size() < capacity ? 0 : candidates.get(lowest());
+        }
+
+        synchronized List<K> keys() {
+            return new ArrayList<>(candidates.keySet());
+        }
+
+        private K lowest() {
+            Iterator<Map.Entry<K, Integer>> iterator = candidates.entrySet().iterator();
+            Map.Entry<K, Integer> lowest = iterator.next();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Integer> entry = iterator.next();
+                if (entry.getValue() < lowest.getValue()) {
+                    lowest = entry;
+                }
+            }
+            return lowest.getKey();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.innvo.config.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded in-process cache, with a W-TinyLFU-like policy.
+ * <p>
+ * New entries go to a small window, ordered by recency. The entry leaving the window goes to the main area, ordered
+ * by recency too, but once the main area is full it only replaces the least recently used entry there if it was
+ * requested more often, according to a frequency sketch. One-off keys, such as those of a scan, thus do not evict
+ * the hot ones.
+ * <p>
+ * Pinned keys, such as the hot keys found by {@link HeavyHitters}, are always admitted to the main area and are
+ * not evicted from it to make room for others, as long as some entries there are not pinned.
+ * <p>
+ * The entries are split in segments by hash, each one guarded by its own lock; entries expire after their time to
+ * live.
+ */
+class LocalCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final FrequencySketch sketch;
+
+    private final long timeToLiveInMs;
+
+    private final Predicate<Object> pinned;
+
+    private final LongAdder evictions = new LongAdder();
+
+    LocalCache(int maxEntries, int windowPercent, long timeToLiveInMs, Predicate<Object> pinned) {
+        this.sketch = new FrequencySketch(maxEntries);
+        this.timeToLiveInMs = timeToLiveInMs;
+        this.pinned = pinned;
+        int segmentSize = Math.max(maxEntries / SEGMENTS, 1);
+        int windowSize = Math.max(segmentSize * windowPercent / 100, 1);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(windowSize, Math.max(segmentSize - windowSize, 1));
+        }
+    }
+
+    /**
+     * Get an entry, and count the request in the frequency sketch.
+     *
+     * @param key the key
+     * @return the value wrapper, or null if the entry is absent or expired
+     */
+    Cache.ValueWrapper get(Object key) {
+        sketch.increment(key);
+        return segmentFor(key).get(key, System.currentTimeMillis());
+    }
+
+    void put(Object key, Cache.ValueWrapper value) {
+        segmentFor(key).put(key, new Entry(value, System.currentTimeMillis() + timeToLiveInMs));
+    }
+
+    void evict(Object key) {
+        segmentFor(key).evict(key);
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static class Entry {
+
+        private final Cache.ValueWrapper value;
+
+        private final long expiresAt;
+
+        Entry(Cache.ValueWrapper value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private class Segment {
+
+        private final LinkedHashMap<Object, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<Object, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final int windowSize;
+
+        private final int mainSize;
+
+        Segment(int windowSize, int mainSize) {
+            this.windowSize = windowSize;
+            this.mainSize = mainSize;
+        }
+
+        synchronized Cache.ValueWrapper get(Object key, long now) {
+            Entry entry = window.get(key);
+            if (entry == null) {
+                entry = main.get(key);
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= now) {
+                evict(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(Object key, Entry entry) {
+            if (main.containsKey(key)) {
+                main.put(key, entry);
+                return;
+            }
+            window.put(key, entry);
+            if (window.size() <= windowSize) {
+                return;
+            }
+            Map.Entry<Object, Entry> candidate = removeEldest(window);
+            if (main.size() < mainSize) {
+                main.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            Object victim = leastRecentlyUsedUnpinned();
+            boolean candidatePinned = pinned.test(candidate.getKey());
+            if (victim == null) {
+                // Only pinned entries: the candidate replaces the least recently used one if it is pinned too
+                victim = candidatePinned ? main.keySet().iterator().next() : null;
+            } else if (!candidatePinned && sketch.frequency(candidate.getKey()) <= sketch.frequency(victim)) {
+                victim = null;
+            }
+            if (victim != null) {
+                main.remove(victim);
+                main.put(candidate.getKey(), candidate.getValue());
+            }
+            evictions.increment();
+        }
+
+        private Object leastRecentlyUsedUnpinned() {
+            for (Object key : main.keySet()) {
+                if (!pinned.test(key)) {
+                    return key;
+                }
+            }
+            return null;
+        }
+
+        synchronized void evict(Object key) {
+            if (window.remove(key) == null) {
+                main.remove(key);
+            }
+        }
+
+        synchronized void clear() {
+            window.clear();
+            main.clear();
+        }
+
+        synchronized int size() {
+            return window.size() + main.size();
+        }
+
+        private Map.Entry<Object, Entry> removeEldest(LinkedHashMap<Object, Entry> map) {
+            Iterator<Map.Entry<Object, Entry>> iterator = map.entrySet().iterator();
+            Map.Entry<Object, Entry> eldest = new AbstractMap.SimpleImmutableEntry<>(iterator.next());
+            iterator.remove();
+            return eldest;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.innvo.config.cache;
+
+import com.codahale.metrics.Meter;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Spring cache reading from a {@link LocalCache} first, then from a Hazelcast cache.
+ * <p>
+ * Values found in the local cache are returned as they are, without being deserialized: like with any in-process
+ * cache, callers must not modify them. Writes go to Hazelcast first, then the other members are told to evict their
+ * local copy, see {@link TwoLevelCacheManager}.
+ */
+class TwoLevelCache implements Cache {
+
+    private final String name;
+
+    private final LocalCache localCache;
+
+    private final Cache hazelcastCache;
+
+    private final Consumer<Object> invalidation;
+
+    private final Meter localHits;
+
+    private final Meter localMisses;
+
+    private final Meter hazelcastHits;
+
+    private final Meter hazelcastMisses;
+
+    /**
+     * @param invalidation called with the key written or evicted, or null when the cache is cleared
+     */
+    TwoLevelCache(String name, LocalCache localCache, Cache hazelcastCache, Consumer<Object> invalidation,
+            Meter localHits, Meter localMisses, Meter hazelcastHits, Meter hazelcastMisses) {
+        this.name = name;
+        this.localCache = localCache;
+        this.hazelcastCache = hazelcastCache;
+        this.invalidation = invalidation;
+        this.localHits = localHits;
+        this.localMisses = localMisses;
+        this.hazelcastHits = hazelcastHits;
+        this.hazelcastMisses = hazelcastMisses;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return hazelcastCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = localCache.get(key);
+        if (value != null) {
+            localHits.mark();
+            return value;
+        }
+        localMisses.mark();
+        value = hazelcastCache.get(key);
+        if (value == null) {
+            hazelcastMisses.mark();
+            return null;
+        }
+        hazelcastHits.mark();
+        localCache.put(key, value);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object result = value != null ? value.get() : null;
+        if (result != null && type != null && !type.isInstance(result)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + result);
+        }
+        return (T) result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T result = hazelcastCache.get(key, valueLoader);
+        localCache.put(key, new SimpleValueWrapper(result));
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        hazelcastCache.put(key, value);
+        localCache.put(key, new SimpleValueWrapper(value));
+        invalidation.accept(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = hazelcastCache.putIfAbsent(key, value);
+        if (existing != null) {
+            localCache.put(key, existing);
+        } else {
+            localCache.put(key, new SimpleValueWrapper(value));
+            invalidation.accept(key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        hazelcastCache.evict(key);
+        localCache.evict(key);
+        invalidation.accept(key);
+    }
+
+    @Override
+    public void clear() {
+        hazelcastCache.clear();
+        localCache.clear();
+        invalidation.accept(null);
+    }
+
+    /**
+     * Apply an invalidation received from another member.
+     *
+     * @param key the key written or evicted, or null when the cache was cleared
+     */
+    void invalidateLocally(Object key) {
+        if (key == null) {
+            localCache.clear();
+        } else {
+            localCache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.innvo.config.cache;
+
+import com.innvo.config.ApplicationProperties;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache manager putting a size-bounded {@link LocalCache} in front of each cache of a Hazelcast cache manager, so
+ * that hot keys are read without a network call nor deserialization. It serves the Spring caches only, such as the
+ * cache of the components read by id of {@link com.innvo.service.ComponentService#findOne(Long)}; the Hibernate
+ * second-level cache regions are read from Hazelcast directly.
+ * <p>
+ * Each write or eviction is published on a Hazelcast topic, and the other members evict the key from their local
+ * cache when they receive it. The delivery is asynchronous, so another member may return the previous value for a
+ * short while; a local entry also expires after its time to live, which bounds the staleness when a read races with
+ * an invalidation.
+ * <p>
+ * The keys set with {@link #setPinnedKeys(Set)} are kept in the local caches in priority.
+ * <p>
+ * Hits and misses are metered per cache and per level, as "cache.[name].local.*" and "cache.[name].hazelcast.*".
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    /**
+     * The name of the topic carrying the invalidations.
+     */
+    public static final String TOPIC_NAME = "cacheInvalidations";
+
+    private final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private final CacheManager hazelcastCacheManager;
+
+    private final ApplicationProperties.LocalCache properties;
+
+    private final MetricRegistry metricRegistry;
+
+    private final ITopic<Invalidation> topic;
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private volatile Set<?> pinnedKeys = Collections.emptySet();
+
+    public TwoLevelCacheManager(CacheManager hazelcastCacheManager, HazelcastInstance hazelcastInstance,
+            ApplicationProperties.LocalCache properties, MetricRegistry metricRegistry) {
+        this.hazelcastCacheManager = hazelcastCacheManager;
+        this.properties = properties;
+        this.metricRegistry = metricRegistry;
+        this.topic = hazelcastInstance.getTopic(TOPIC_NAME);
+        topic.addMessageListener(this::onInvalidation);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache hazelcastCache = hazelcastCacheManager.getCache(name);
+        if (hazelcastCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> createCache(name, hazelcastCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return hazelcastCacheManager.getCacheNames();
+    }
+
+    /**
+     * Set the keys to keep in the local caches in priority, in place of the previous ones.
+     *
+     * @param pinnedKeys the keys, of any cache
+     */
+    public void setPinnedKeys(Set<?> pinnedKeys) {
+        this.pinnedKeys = pinnedKeys;
+    }
+
+    private TwoLevelCache createCache(String name, Cache hazelcastCache) {
+        log.debug("Creating a local cache of {} entries in front of the Hazelcast cache {}",
+            properties.getMaxEntries(), name);
+        LocalCache localCache = new LocalCache(properties.getMaxEntries(), properties.getWindowPercent(),
+            properties.getTimeToLiveSeconds() * 1000L, key -> pinnedKeys.contains(key));
+        String prefix = MetricRegistry.name("cache", name);
+        Meter localHits = metricRegistry.meter(MetricRegistry.name(prefix, "local", "hits"));
+        Meter localMisses = metricRegistry.meter(MetricRegistry.name(prefix, "local", "misses"));
+        Meter hazelcastHits = metricRegistry.meter(MetricRegistry.name(prefix, "hazelcast", "hits"));
+        Meter hazelcastMisses = metricRegistry.meter(MetricRegistry.name(prefix, "hazelcast", "misses"));
+        metricRegistry.register(MetricRegistry.name(prefix, "local", "hit-ratio"), hitRatio(localHits, localMisses));
+        metricRegistry.register(MetricRegistry.name(prefix, "hazelcast", "hit-ratio"),
+            hitRatio(hazelcastHits, hazelcastMisses));
+        metricRegistry.register(MetricRegistry.name(prefix, "local", "size"), (Gauge<Long>) localCache::size);
+        metricRegistry.register(MetricRegistry.name(prefix, "local", "evictions"),
+            (Gauge<Long>) localCache::getEvictions);
+        return new TwoLevelCache(name, localCache, hazelcastCache, key -> topic.publish(new Invalidation(name, key)),
+            localHits, localMisses, hazelcastHits, hazelcastMisses);
+    }
+
+    private void onInvalidation(Message<Invalidation> message) {
+        if (message.getPublishingMember() != null && message.getPublishingMember().localMember()) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(message.getMessageObject().getCacheName());
+        if (cache != null) {
+            cache.invalidateLocally(message.getMessageObject().getKey());
+        }
+    }
+
+    private static RatioGauge hitRatio(Meter hits, Meter misses) {
+        return new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(hits.getOneMinuteRate(), hits.getOneMinuteRate() + misses.getOneMinuteRate());
+            }
+        };
+    }
+
+    /**
+     * A key written or evicted in a cache, or a null key when the cache was cleared.
+     */
+    public static class Invalidation implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String cacheName;
+
+        private final Object key;
+
+        public Invalidation(String cacheName, Object key) {
+            this.cacheName = cacheName;
+            this.key = key;
+        }
+
+        public String getCacheName() {
+            return cacheName;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+    }
+}
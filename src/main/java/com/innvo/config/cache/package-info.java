@@ -0,0 +1,4 @@
+/**
+ * Two-level Spring cache: an in-process cache in front of Hazelcast.
+ */
+package com.innvo.config.cache;
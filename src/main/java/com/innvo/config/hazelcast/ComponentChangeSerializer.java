@@ -0,0 +1,48 @@
+package com.innvo.config.hazelcast;
+
+import com.innvo.domain.ComponentChange;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializes a ComponentChange, as published on the change topic, with its component inlined.
+ */
+public class ComponentChangeSerializer implements StreamSerializer<ComponentChange> {
+
+    public static final int TYPE_ID = 2;
+
+    private static final ComponentChange.Type[] TYPES = ComponentChange.Type.values();
+
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, ComponentChange change) throws IOException {
+        out.writeLong(change.getSequence());
+        out.writeByte(change.getType().ordinal());
+        out.writeLong(change.getComponentId());
+        out.writeBoolean(change.getComponent() != null);
+        if (change.getComponent() != null) {
+            ComponentSerializer.writeComponent(out, change.getComponent());
+        }
+    }
+
+    @Override
+    public ComponentChange read(ObjectDataInput in) throws IOException {
+        long sequence = in.readLong();
+        ComponentChange.Type type = TYPES[in.readByte()];
+        long componentId = in.readLong();
+        return new ComponentChange(sequence, type, componentId,
+            in.readBoolean() ? ComponentSerializer.readComponent(in) : null);
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,57 @@
+package com.innvo.config.hazelcast;
+
+import com.innvo.domain.Component;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializes a Component as its fields only, without the class descriptors of Java serialization.
+ */
+public class ComponentSerializer implements StreamSerializer<Component> {
+
+    public static final int TYPE_ID = 1;
+
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, Component component) throws IOException {
+        writeComponent(out, component);
+    }
+
+    @Override
+    public Component read(ObjectDataInput in) throws IOException {
+        return readComponent(in);
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    static void writeComponent(ObjectDataOutput out, Component component) throws IOException {
+        out.writeBoolean(component.getId() != null);
+        if (component.getId() != null) {
+            out.writeLong(component.getId());
+        }
+        out.writeUTF(component.getName());
+        out.writeLong(component.getChangeSequence());
+        out.writeLong(component.getVersion());
+    }
+
+    static Component readComponent(ObjectDataInput in) throws IOException {
+        Component component = new Component();
+        if (in.readBoolean()) {
+            component.setId(in.readLong());
+        }
+        component.setName(in.readUTF());
+        component.setChangeSequence(in.readLong());
+        component.setVersion(in.readLong());
+        return component;
+    }
+}
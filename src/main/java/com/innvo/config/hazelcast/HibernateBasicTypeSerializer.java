@@ -0,0 +1,64 @@
+package com.innvo.config.hazelcast;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.BasicTypeRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Serializes a Hibernate basic type by its registration key.
+ * <p>
+ * The keys of the second-level cache regions hold the type of the entity identifier, which Hazelcast would otherwise
+ * write with Java serialization, with the descriptors of all its classes, in every key. The standard types are
+ * written as their name and read back from the standard registry; other types still use Java serialization.
+ */
+public class HibernateBasicTypeSerializer implements StreamSerializer<BasicType> {
+
+    public static final int TYPE_ID = 3;
+
+    private static final BasicTypeRegistry STANDARD_TYPES = new BasicTypeRegistry();
+
+    @Override
+    public int getTypeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public void write(ObjectDataOutput out, BasicType type) throws IOException {
+        String key = type.getRegistrationKeys().length > 0 ? type.getRegistrationKeys()[0] : null;
+        if (key != null && STANDARD_TYPES.getRegisteredType(key) == type) {
+            out.writeBoolean(true);
+            out.writeUTF(key);
+        } else {
+            out.writeBoolean(false);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                objectOut.writeObject(type);
+            }
+            out.writeByteArray(bytes.toByteArray());
+        }
+    }
+
+    @Override
+    public BasicType read(ObjectDataInput in) throws IOException {
+        if (in.readBoolean()) {
+            return STANDARD_TYPES.getRegisteredType(in.readUTF());
+        }
+        try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(in.readByteArray()))) {
+            return (BasicType) objectIn.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
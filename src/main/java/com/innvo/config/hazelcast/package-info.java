@@ -0,0 +1,4 @@
+/**
+ * Hazelcast serializers of the values shared between members.
+ */
+package com.innvo.config.hazelcast;
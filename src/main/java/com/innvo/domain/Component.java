@@ -2,6 +2,9 @@ package com.innvo.domain;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import org.springframework.data.elasticsearch.annotations.Document;
 
 import javax.persistence.*;
@@ -20,9 +23,16 @@ public class Component implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Allocated by blocks of the hibernate_sequence increment, the sequence value being the first id of the block.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "componentIdGenerator")
+    @GenericGenerator(name = "componentIdGenerator", strategy = "enhanced-sequence", parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "hibernate_sequence"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+        @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "com.innvo.domain.MeteredPooledLoOptimizer")
+    })
     private Long id;
 
     @NotNull
@@ -30,6 +40,19 @@ public class Component implements Serializable {
     @Column(name = "name", length = 50, nullable = false)
     private String name;
 
+    /**
+     * Position of the last change of this component in the change sequence, set by the ComponentService.
+     */
+    @Column(name = "change_seq", nullable = false)
+    private long changeSequence;
+
+    /**
+     * Negative until set, such as by a client sending it; Hibernate starts the version of new components at 0.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version = -1;
+
     public Long getId() {
         return id;
     }
@@ -51,6 +74,31 @@ public class Component implements Serializable {
         this.name = name;
     }
 
+    public long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Tell whether the version is set: components received without one are written whatever their current version.
+     *
+     * @return true if the version is set
+     */
+    public boolean hasVersion() {
+        return version >= 0;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -76,6 +124,7 @@ public class Component implements Serializable {
         return "Component{" +
             "id=" + id +
             ", name='" + name + "'" +
+            ", version=" + version +
             '}';
     }
 }
@@ -0,0 +1,61 @@
+package com.innvo.domain;
+
+import java.io.Serializable;
+
+/**
+ * A change of a Component, in the change sequence.
+ */
+public class ComponentChange implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final long sequence;
+
+    private final Type type;
+
+    private final Long componentId;
+
+    private final Component component;
+
+    public ComponentChange(long sequence, Type type, Long componentId, Component component) {
+        this.sequence = sequence;
+        this.type = type;
+        this.componentId = componentId;
+        this.component = component;
+    }
+
+    /**
+     * @return the position of this change in the feed, increasing across the cluster
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getComponentId() {
+        return componentId;
+    }
+
+    /**
+     * @return the component, or null for a deletion
+     */
+    public Component getComponent() {
+        return component;
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentChange{" +
+            "sequence=" + sequence +
+            ", type=" + type +
+            ", componentId=" + componentId +
+            '}';
+    }
+}
@@ -0,0 +1,35 @@
+package com.innvo.domain;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the values taken from hibernate_sequence, and the ids allocated from them.
+ * <p>
+ * Ids are allocated by blocks of the sequence increment, so there should be about one sequence call per block of
+ * inserted rows, never one per row.
+ */
+public final class IdAllocationCounters {
+
+    private static final LongAdder SEQUENCE_CALLS = new LongAdder();
+
+    private static final LongAdder ALLOCATED_IDS = new LongAdder();
+
+    private IdAllocationCounters() {
+    }
+
+    public static void sequenceCalled(long calls) {
+        SEQUENCE_CALLS.add(calls);
+    }
+
+    public static void idsAllocated(long ids) {
+        ALLOCATED_IDS.add(ids);
+    }
+
+    public static long getSequenceCalls() {
+        return SEQUENCE_CALLS.sum();
+    }
+
+    public static long getAllocatedIds() {
+        return ALLOCATED_IDS.sum();
+    }
+}
@@ -0,0 +1,37 @@
+package com.innvo.domain;
+
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+
+import java.io.Serializable;
+
+/**
+ * Pooled-lo optimizer counting its sequence calls and generated ids in {@link IdAllocationCounters}.
+ * <p>
+ * Each value taken from the sequence is the first id of a block of increment size ids, so the ids of a block are
+ * the same as the ones given by the bulk allocator of the repositories.
+ */
+public class MeteredPooledLoOptimizer extends PooledLoOptimizer {
+
+    public MeteredPooledLoOptimizer(Class<?> returnClass, int incrementSize) {
+        super(returnClass, incrementSize);
+    }
+
+    @Override
+    public synchronized Serializable generate(AccessCallback callback) {
+        IdAllocationCounters.idsAllocated(1);
+        return super.generate(new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                IdAllocationCounters.sequenceCalled(1);
+                return callback.getNextValue();
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return callback.getTenantIdentifier();
+            }
+        });
+    }
+}
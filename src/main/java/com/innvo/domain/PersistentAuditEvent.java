@@ -10,6 +10,9 @@ import java.util.Map;
 
 /**
  * Persist AuditEvent managed by the Spring Boot actuator
+ * <p>
+ * Events are written by the AsyncAuditEventWriter, which also fills the event_date column of the event data:
+ * this entity is only used to read them.
  * @see org.springframework.boot.actuate.audit.AuditEvent
  */
 @Entity
@@ -0,0 +1,241 @@
+package com.innvo.repository;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.config.audit.AuditEventConverter;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes audit events to the jhi_persistent_audit_event and jhi_persistent_audit_evt_data tables, out of the
+ * request path.
+ * <p>
+ * Events are added to a bounded, lock-free queue. A single writer thread drains it when a batch is full or when
+ * the flush interval elapses, converts the event data, and inserts each batch with JDBC batch statements in one
+ * transaction. When the queue is full, the configured {@link ApplicationProperties.Audit.OverflowPolicy} applies.
+ * <p>
+ * Event ids are allocated by blocks of hibernate_sequence, with the layout of Hibernate's pooled optimizer, which
+ * {@link com.innvo.domain.PersistentAuditEvent} uses: each sequence value is the last id of its block, so these ids
+ * never collide with the ones of the events Hibernate writes. The components use the pooled-lo layout instead, each
+ * sequence value being the first id of its block: an event may share its id with a component, which is harmless as
+ * they are in different tables. The event date is also written with the event data, as both tables are partitioned
+ * by it.
+ */
+@Repository
+public class AsyncAuditEventWriter {
+
+    private static final String METRIC_PENDING = "audit.queue.pending";
+    private static final String METRIC_FLUSH = "audit.flush";
+    private static final String METRIC_DISCARDED = "audit.events.discarded";
+    private static final String METRIC_CALLER_RUNS = "audit.events.caller-runs";
+    private static final String METRIC_FAILURES = "audit.events.failures";
+
+    private static final String SEQUENCE_NAME = "hibernate_sequence";
+
+    /** Must match the increment of the sequence */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final int PRINCIPAL_MAX_LENGTH = 50;
+    private static final int TYPE_MAX_LENGTH = 255;
+    private static final int DATA_NAME_MAX_LENGTH = 150;
+    private static final int DATA_VALUE_MAX_LENGTH = 255;
+
+    private static final String INSERT_EVENT_SQL = "insert into jhi_persistent_audit_event " +
+        "(event_id, principal, event_date, event_type) values (?, ?, ?, ?)";
+    private static final String INSERT_DATA_SQL = "insert into jhi_persistent_audit_evt_data " +
+        "(event_id, event_date, name, value) values (?, ?, ?, ?)";
+
+    private final Logger log = LoggerFactory.getLogger(AsyncAuditEventWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AuditEventConverter auditEventConverter;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final MetricRegistry metricRegistry;
+
+    private final String sequenceNextValueSql;
+
+    private final Queue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService executor;
+
+    private long nextId;
+
+    private long maxId = -1;
+
+    private Timer flushTimer;
+
+    private Meter discarded;
+
+    private Meter callerRuns;
+
+    private Meter failures;
+
+    public AsyncAuditEventWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory, AuditEventConverter auditEventConverter,
+            ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditEventConverter = auditEventConverter;
+        this.applicationProperties = applicationProperties;
+        this.metricRegistry = metricRegistry;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.sequenceNextValueSql = dialect.getSequenceNextValString(SEQUENCE_NAME);
+    }
+
+    @PostConstruct
+    public void init() {
+        ApplicationProperties.Audit audit = applicationProperties.getAudit();
+        log.debug("Starting audit event writer, flushing every {} events or {} ms", audit.getBatchSize(),
+            audit.getFlushIntervalInMs());
+        flushTimer = metricRegistry.timer(METRIC_FLUSH);
+        discarded = metricRegistry.meter(METRIC_DISCARDED);
+        callerRuns = metricRegistry.meter(METRIC_CALLER_RUNS);
+        failures = metricRegistry.meter(METRIC_FAILURES);
+        metricRegistry.register(METRIC_PENDING, (Gauge<Integer>) pendingEvents::get);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adapcomponent-audit-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, audit.getFlushIntervalInMs(), audit.getFlushIntervalInMs(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue an audit event for writing.
+     *
+     * @param event the event to write
+     */
+    public void write(AuditEvent event) {
+        ApplicationProperties.Audit audit = applicationProperties.getAudit();
+        int pending = pendingEvents.incrementAndGet();
+        if (pending > audit.getQueueCapacity()) {
+            pendingEvents.decrementAndGet();
+            if (audit.getOverflowPolicy() == ApplicationProperties.Audit.OverflowPolicy.DISCARD) {
+                discarded.mark();
+                log.debug("Audit event queue full, discarding event {}", event);
+            } else {
+                callerRuns.mark();
+                insert(Collections.singletonList(event));
+            }
+            return;
+        }
+        queue.offer(event);
+        if (pending >= audit.getBatchSize() && flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the queue is flushed by destroy()
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Write all queued events now, in the calling thread.
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        int batchSize = applicationProperties.getAudit().getBatchSize();
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        AuditEvent event;
+        while ((event = queue.poll()) != null) {
+            pendingEvents.decrementAndGet();
+            batch.add(event);
+            if (batch.size() == batchSize) {
+                insert(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(batch);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        log.info("Closing audit event writer, {} pending events", pendingEvents.get());
+        executor.shutdown();
+        long timeout = applicationProperties.getAudit().getCloseTimeoutInSeconds();
+        if (!executor.awaitTermination(timeout, TimeUnit.SECONDS)) {
+            log.warn("Audit event writer did not complete within {} seconds", timeout);
+        }
+        flush();
+    }
+
+    private void insert(List<AuditEvent> events) {
+        try (Timer.Context ignored = flushTimer.time()) {
+            List<Object[]> eventRows = new ArrayList<>(events.size());
+            List<Object[]> dataRows = new ArrayList<>();
+            for (AuditEvent event : events) {
+                long id = nextId();
+                Timestamp eventDate = new Timestamp(event.getTimestamp().getTime());
+                eventRows.add(new Object[] {id, truncate(event.getPrincipal(), PRINCIPAL_MAX_LENGTH), eventDate,
+                    truncate(event.getType(), TYPE_MAX_LENGTH)});
+                for (Map.Entry<String, String> entry : auditEventConverter.convertDataToStrings(event.getData()).entrySet()) {
+                    dataRows.add(new Object[] {id, eventDate, truncate(entry.getKey(), DATA_NAME_MAX_LENGTH),
+                        truncate(entry.getValue(), DATA_VALUE_MAX_LENGTH)});
+                }
+            }
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, eventRows);
+                if (!dataRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_DATA_SQL, dataRows);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            failures.mark(events.size());
+            log.error("Failed to write {} audit events", events.size(), e);
+        }
+    }
+
+    private synchronized long nextId() {
+        if (nextId > maxId) {
+            maxId = jdbcTemplate.queryForObject(sequenceNextValueSql, Long.class);
+            nextId = maxId - ID_ALLOCATION_SIZE + 1;
+        }
+        return nextId++;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -0,0 +1,190 @@
+package com.innvo.repository;
+
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads audit events by date range, without loading them as entities.
+ * <p>
+ * Events and their data are read with a single join, including the event date so that the data partitions are
+ * pruned too, and are converted one at a time while the result set is read. Pages are selected by keyset on
+ * (event_date, event_id), and exports are streamed with a database cursor.
+ */
+@Repository
+public class AuditEventStreamRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String SELECT_EVENTS_SQL = "select event_id, principal, event_date, event_type " +
+        "from jhi_persistent_audit_event where event_date >= ? and event_date < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AuditEventStreamRepository(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Find a page of audit events, in (event date, event id) order.
+     *
+     * @param from the start of the date range, inclusive
+     * @param to the end of the date range, exclusive
+     * @param after the key of the last event of the previous page, or null for the first page
+     * @param size the maximum number of events
+     * @return the events
+     */
+    public List<Entry> findPage(LocalDateTime from, LocalDateTime to, Key after, int size) {
+        StringBuilder events = new StringBuilder(SELECT_EVENTS_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(from));
+        args.add(Timestamp.valueOf(to));
+        if (after != null) {
+            events.append(" and (event_date > ? or (event_date = ? and event_id > ?))");
+            args.add(Timestamp.valueOf(after.getDate()));
+            args.add(Timestamp.valueOf(after.getDate()));
+            args.add(after.getId());
+        }
+        events.append(" order by event_date, event_id limit ?");
+        args.add(size);
+        List<Entry> page = new ArrayList<>(size);
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.query(joinData(events.toString()), args.toArray(), new EntryExtractor(page::add));
+            return null;
+        });
+        return page;
+    }
+
+    /**
+     * Read all the audit events of a date range, in (event date, event id) order.
+     *
+     * @param from the start of the date range, inclusive
+     * @param to the end of the date range, exclusive
+     * @param consumer called with each event, while the events are read
+     */
+    public void stream(LocalDateTime from, LocalDateTime to, Consumer<Entry> consumer) {
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.query(joinData(SELECT_EVENTS_SQL), new Object[] {Timestamp.valueOf(from), Timestamp.valueOf(to)},
+                new EntryExtractor(consumer));
+            return null;
+        });
+    }
+
+    private static String joinData(String events) {
+        return "select e.event_id, e.principal, e.event_date, e.event_type, d.name, d.value from (" + events + ") e " +
+            "left join jhi_persistent_audit_evt_data d on d.event_id = e.event_id and d.event_date = e.event_date " +
+            "order by e.event_date, e.event_id";
+    }
+
+    /**
+     * The position of an audit event, in (event date, event id) order.
+     */
+    public static class Key {
+
+        private final LocalDateTime date;
+
+        private final long id;
+
+        public Key(LocalDateTime date, long id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        public LocalDateTime getDate() {
+            return date;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+
+    /**
+     * An audit event, with its position.
+     */
+    public static class Entry {
+
+        private final Key key;
+
+        private final AuditEvent event;
+
+        Entry(Key key, AuditEvent event) {
+            this.key = key;
+            this.event = event;
+        }
+
+        public Key getKey() {
+            return key;
+        }
+
+        public AuditEvent getEvent() {
+            return event;
+        }
+    }
+
+    /**
+     * Groups the joined rows of each event, and passes on the event once all its rows are read.
+     */
+    private static class EntryExtractor implements ResultSetExtractor<Void> {
+
+        private final Consumer<Entry> consumer;
+
+        EntryExtractor(Consumer<Entry> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Void extractData(ResultSet rs) throws SQLException {
+            long id = 0;
+            Timestamp date = null;
+            String principal = null;
+            String type = null;
+            Map<String, Object> data = null;
+            while (rs.next()) {
+                long rowId = rs.getLong(1);
+                if (data != null && rowId != id) {
+                    complete(id, date, principal, type, data);
+                    data = null;
+                }
+                if (data == null) {
+                    id = rowId;
+                    principal = rs.getString(2);
+                    date = rs.getTimestamp(3);
+                    type = rs.getString(4);
+                    data = new HashMap<>();
+                }
+                String name = rs.getString(5);
+                if (name != null) {
+                    data.put(name, rs.getString(6));
+                }
+            }
+            if (data != null) {
+                complete(id, date, principal, type, data);
+            }
+            return null;
+        }
+
+        private void complete(long id, Timestamp date, String principal, String type, Map<String, Object> data) {
+            consumer.accept(new Entry(new Key(date.toLocalDateTime(), id), new AuditEvent(date, principal, type, data)));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.innvo.repository;
+
+import com.innvo.domain.ComponentChange;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Repository for the change sequence of the Component entity, and the tombstones of the deleted components.
+ */
+@Repository
+public class ComponentChangeRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ComponentChangeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Take the next value of the change sequence.
+     * <p>
+     * The counter row stays locked until the end of the current transaction, so concurrent writes get their values
+     * in commit order: once a value is committed, every lower value is committed as well, see
+     * {@link #currentSequence()}.
+     *
+     * @return the next value
+     */
+    public long nextSequence() {
+        jdbcTemplate.update("update component_change_counter set value = value + 1 where id = 1");
+        return jdbcTemplate.queryForObject("select value from component_change_counter where id = 1", Long.class);
+    }
+
+    /**
+     * Take a range of values of the change sequence, for a bulk write.
+     *
+     * @param count the number of values
+     * @return the last value of the range
+     */
+    public long nextSequences(long count) {
+        jdbcTemplate.update("update component_change_counter set value = value + ? where id = 1", count);
+        return currentSequence();
+    }
+
+    /**
+     * Get the last value taken from the change sequence, by a committed transaction.
+     * <p>
+     * As the values are taken in commit order, this is also the high-water mark of the change sequence: no write
+     * still in progress has a lower value, so the changes up to it can be read without missing one that would
+     * commit later.
+     *
+     * @return the last value
+     */
+    public long currentSequence() {
+        return jdbcTemplate.queryForObject("select value from component_change_counter where id = 1", Long.class);
+    }
+
+    public void saveTombstone(Long componentId, long sequence) {
+        jdbcTemplate.update("insert into component_tombstone (component_id, change_seq, deleted_date) values (?, ?, ?)",
+            componentId, sequence, new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * Get the highest position in the change sequence whose tombstone was purged.
+     *
+     * @return the position, or 0 if no tombstone was purged
+     */
+    public long purgedSequence() {
+        return jdbcTemplate.queryForObject("select purged_seq from component_change_counter where id = 1", Long.class);
+    }
+
+    /**
+     * Purge the tombstones of the components deleted before a date, and raise the purged position accordingly.
+     * <p>
+     * The purged position is updated last, so that the counter row, which every write takes, is only locked at the
+     * end of the transaction.
+     *
+     * @param before the date
+     * @return the number of tombstones purged
+     */
+    public int purgeTombstonesBefore(Timestamp before) {
+        Long horizon = jdbcTemplate.queryForObject("select max(change_seq) from component_tombstone " +
+            "where deleted_date < ?", Long.class, before);
+        if (horizon == null) {
+            return 0;
+        }
+        int purged = jdbcTemplate.update("delete from component_tombstone where change_seq <= ?", horizon);
+        jdbcTemplate.update("update component_change_counter set purged_seq = ? where id = 1 and purged_seq < ?",
+            horizon, horizon);
+        return purged;
+    }
+
+    /**
+     * Find the deletions between two positions in the change sequence, in sequence order.
+     *
+     * @param since the position in the change sequence, exclusive
+     * @param until the position in the change sequence, inclusive
+     * @param size the maximum number of deletions
+     * @return the deletions
+     */
+    public List<ComponentChange> findDeletionsBetween(long since, long until, int size) {
+        return jdbcTemplate.query("select component_id, change_seq from component_tombstone " +
+                "where change_seq > ? and change_seq <= ? order by change_seq limit ?",
+            (rs, rowNum) -> new ComponentChange(rs.getLong(2), ComponentChange.Type.DELETED, rs.getLong(1), null),
+            since, until, size);
+    }
+}
@@ -0,0 +1,83 @@
+package com.innvo.repository;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+
+/**
+ * Repository loading components in bulk with the PostgreSQL COPY protocol.
+ * <p>
+ * Rows are copied into a temporary staging table, dropped at the end of the transaction, then inserted into the
+ * component table with a single statement. Ids are allocated by blocks, see {@link IdBlockRepository}.
+ * <p>
+ * All methods must be called in the same transaction.
+ */
+@Repository
+public class ComponentCopyRepository {
+
+    private static final String VALID_ROWS = "name is not null and length(name) <= 50";
+
+    private static final int BLOCK_SIZE = IdBlockRepository.BLOCK_SIZE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final IdBlockRepository idBlockRepository;
+
+    public ComponentCopyRepository(JdbcTemplate jdbcTemplate, IdBlockRepository idBlockRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idBlockRepository = idBlockRepository;
+    }
+
+    /**
+     * Copy rows into the staging table.
+     *
+     * @param csv the rows, as CSV with a "name" header
+     * @return the number of rows copied
+     */
+    public long copyIntoStaging(Reader csv) {
+        jdbcTemplate.execute("create temporary table component_staging (name text) on commit drop");
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("copy component_staging (name) from stdin with (format csv, header true)", csv);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Count the staged rows which are valid components.
+     *
+     * @return the number of valid rows
+     */
+    public long countValidStaged() {
+        return jdbcTemplate.queryForObject("select count(*) from component_staging where " + VALID_ROWS, Long.class);
+    }
+
+    /**
+     * Insert the valid staged rows into the component table, with new ids and consecutive change sequence values.
+     *
+     * @param firstSequence the change sequence of the first row
+     * @param count the number of valid rows
+     * @return the number of inserted rows
+     */
+    public int insertStaged(long firstSequence, long count) {
+        Long[] firstIds = idBlockRepository.allocate(count).toArray(new Long[0]);
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("insert into component (id, name, change_seq, version) " +
+                "select b.first_id + (s.rn - 1) % " + BLOCK_SIZE + ", s.name, ? + s.rn - 1, 0 " +
+                "from (select name, row_number() over () as rn from component_staging where " + VALID_ROWS + ") s " +
+                "join unnest(?) with ordinality as b (first_id, block) on b.block = (s.rn - 1) / " + BLOCK_SIZE + " + 1");
+            statement.setLong(1, firstSequence);
+            statement.setArray(2, connection.createArrayOf("bigint", firstIds));
+            return statement;
+        });
+    }
+}
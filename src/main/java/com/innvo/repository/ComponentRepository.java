@@ -1,15 +1,75 @@
 package com.innvo.repository;
 
 import com.innvo.domain.Component;
+import com.innvo.service.dto.ComponentDTO;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Spring Data JPA repository for the Component entity.
  */
 @SuppressWarnings("unused")
-public interface ComponentRepository extends JpaRepository<Component,Long> {
+public interface ComponentRepository extends JpaRepository<Component,Long>, ComponentRepositoryCustom {
+
+    /**
+     * Components whose lower-cased name starts with the prefix or is similar to the name, prefix matches first,
+     * then by decreasing similarity. Requires PostgreSQL and the pg_trgm extension.
+     * <p>
+     * The "#pageable" comment lets Spring Data paginate this native query.
+     */
+    @Query(value = "select * from component " +
+        "where lower(name) like :prefix or lower(name) % :name " +
+        "order by lower(name) like :prefix desc, similarity(lower(name), :name) desc, id \n-- #pageable\n",
+        countQuery = "select count(*) from component where lower(name) like :prefix or lower(name) % :name",
+        nativeQuery = true)
+    Page<Component> searchByNameSimilarity(@Param("name") String name, @Param("prefix") String prefix, Pageable pageable);
+
+    /**
+     * Components whose lower-cased name matches the pattern, the ones matching the prefix first.
+     */
+    @Query(value = "select c from Component c where lower(c.name) like :pattern " +
+        "order by case when lower(c.name) like :prefix then 0 else 1 end, c.name, c.id",
+        countQuery = "select count(c) from Component c where lower(c.name) like :pattern")
+    Page<Component> searchByNameContaining(@Param("prefix") String prefix, @Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * Components read as DTOs, without loading them in the persistence context or flushing it first.
+     */
+    @Query(value = "select new com.innvo.service.dto.ComponentDTO(c.id, c.name, c.changeSequence, c.version) " +
+        "from Component c",
+        countQuery = "select count(c) from Component c")
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FLUSH_MODE, value = "MANUAL"))
+    Page<ComponentDTO> findAllProjectedBy(Pageable pageable);
+
+    /**
+     * Ids of the most recently changed components.
+     */
+    @Query("select c.id from Component c order by c.changeSequence desc")
+    List<Long> findIdsOrderByChangeSequenceDesc(Pageable pageable);
+
+    /**
+     * Ids of the components that exist among the given ones.
+     */
+    @Query("select c.id from Component c where c.id in :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Components changed after a position in the change sequence, in sequence order.
+     */
+    List<Component> findByChangeSequenceGreaterThanOrderByChangeSequence(long since, Pageable pageable);
 
+    /**
+     * Components changed after a position in the change sequence and up to another one, in sequence order.
+     */
+    @Query("select c from Component c where c.changeSequence > :since and c.changeSequence <= :until " +
+        "order by c.changeSequence")
+    List<Component> findChangedBetween(@Param("since") long since, @Param("until") long until, Pageable pageable);
 }
@@ -0,0 +1,53 @@
+package com.innvo.repository;
+
+import com.innvo.domain.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom methods of the {@link ComponentRepository}.
+ */
+public interface ComponentRepositoryCustom {
+
+    /**
+     * Update the name of a component if its version matches, with a single UPDATE statement, and evict it from the
+     * second-level cache.
+     *
+     * @param id the id of the component
+     * @param version the expected version of the component, incremented by the update
+     * @param name the new name
+     * @param changeSequence the position of the update in the change sequence
+     * @return true if the component was updated, false if it does not exist or has another version
+     */
+    boolean updateName(Long id, long version, String name, long changeSequence);
+
+    /**
+     * Find components in the second-level cache, with one bulk lookup.
+     * <p>
+     * The components are detached copies of the cached state, and the ones not in the cache are left out.
+     *
+     * @param ids the ids of the components
+     * @return the cached components, by id
+     */
+    Map<Long, Component> findAllInCache(Collection<Long> ids);
+
+    /**
+     * Insert or update components with their id, name, change sequence and version, with a batch of statements, and
+     * evict them from the second-level cache.
+     * <p>
+     * A component is not updated if it already has a greater version.
+     *
+     * @param components the components
+     */
+    void upsertAll(List<Component> components);
+
+    /**
+     * Delete components with a batch of statements, and evict them from the second-level cache.
+     *
+     * @param ids the ids of the components
+     * @return the ids of the deleted components, without the ones which did not exist
+     */
+    List<Long> deleteAllById(Collection<Long> ids);
+}
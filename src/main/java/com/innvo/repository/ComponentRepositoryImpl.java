@@ -0,0 +1,170 @@
+package com.innvo.repository;
+
+import com.innvo.domain.Component;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.hibernate.region.HazelcastRegion;
+import com.hazelcast.hibernate.serialization.Expirable;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.TypeHelper;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the {@link ComponentRepositoryCustom} methods.
+ * <p>
+ * Updates are run with JDBC rather than as JPQL bulk updates, which would clear the whole Component region of the
+ * second-level cache: only the updated component is evicted.
+ * <p>
+ * Bulk cache lookups read the Hazelcast map of the Component region directly, since Hibernate only reads the
+ * second-level cache one entity at a time.
+ */
+public class ComponentRepositoryImpl implements ComponentRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final boolean postgresql;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ComponentRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+            JpaProperties jpaProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.postgresql = jpaProperties.getDatabase() == Database.POSTGRESQL;
+    }
+
+    @Override
+    public boolean updateName(Long id, long version, String name, long changeSequence) {
+        int updated = jdbcTemplate.update("update component set name = ?, change_seq = ?, version = version + 1 " +
+            "where id = ? and version = ?", name, changeSequence, id, version);
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A concurrent read may have cached the previous state before the commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id);
+                }
+            });
+        }
+        return updated == 1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Long, Component> findAllInCache(Collection<Long> ids) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Component.class);
+        Map<Long, Component> components = new HashMap<>();
+        if (ids.isEmpty() || !persister.hasCache() ||
+                !(persister.getCacheAccessStrategy().getRegion() instanceof HazelcastRegion)) {
+            return components;
+        }
+        EntityRegionAccessStrategy cacheAccess = persister.getCacheAccessStrategy();
+        Map<Object, Long> keys = new HashMap<>();
+        for (Long id : ids) {
+            keys.put(cacheAccess.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier()), id);
+        }
+        Map<Object, Object> region = ((HazelcastRegion<?>) cacheAccess.getRegion()).getCache().asMap();
+        Map<Object, Object> entries = region instanceof IMap ? ((IMap<Object, Object>) region).getAll(keys.keySet()) :
+            region;
+        for (Map.Entry<Object, Long> key : keys.entrySet()) {
+            Object entry = entries.get(key.getKey());
+            Object value = entry instanceof Expirable ? ((Expirable) entry).getValue(session.getTimestamp()) : null;
+            if (value instanceof CacheEntry && !((CacheEntry) value).isReferenceEntry()) {
+                Object[] state = TypeHelper.assemble(((CacheEntry) value).getDisassembledState(),
+                    persister.getPropertyTypes(), session, null);
+                Component component = new Component();
+                persister.setPropertyValues(component, state);
+                component.setId(key.getValue());
+                components.put(key.getValue(), component);
+            }
+        }
+        return components;
+    }
+
+    @Override
+    public void upsertAll(List<Component> components) {
+        if (components.isEmpty()) {
+            return;
+        }
+        if (postgresql) {
+            jdbcTemplate.batchUpdate("insert into component (id, name, change_seq, version) values (?, ?, ?, ?) " +
+                    "on conflict (id) do update " +
+                    "set name = excluded.name, change_seq = excluded.change_seq, version = excluded.version " +
+                    "where component.version <= excluded.version",
+                components, components.size(), (statement, component) -> {
+                    statement.setLong(1, component.getId());
+                    statement.setString(2, component.getName());
+                    statement.setLong(3, component.getChangeSequence());
+                    statement.setLong(4, component.getVersion());
+                });
+        } else {
+            // H2 has no conditional merge: the rows without a greater version are updated, then the missing ones inserted
+            jdbcTemplate.batchUpdate("update component set name = ?, change_seq = ?, version = ? " +
+                    "where id = ? and version <= ?",
+                components, components.size(), (statement, component) -> {
+                    statement.setString(1, component.getName());
+                    statement.setLong(2, component.getChangeSequence());
+                    statement.setLong(3, component.getVersion());
+                    statement.setLong(4, component.getId());
+                    statement.setLong(5, component.getVersion());
+                });
+            jdbcTemplate.batchUpdate("insert into component (id, name, change_seq, version) select ?, ?, ?, ? " +
+                    "from dual where not exists (select id from component where id = ?)",
+                components, components.size(), (statement, component) -> {
+                    statement.setLong(1, component.getId());
+                    statement.setString(2, component.getName());
+                    statement.setLong(3, component.getChangeSequence());
+                    statement.setLong(4, component.getVersion());
+                    statement.setLong(5, component.getId());
+                });
+        }
+        components.forEach(component -> evict(component.getId()));
+    }
+
+    @Override
+    public List<Long> deleteAllById(Collection<Long> ids) {
+        List<Long> deleted = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return deleted;
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        int[][] counts = jdbcTemplate.batchUpdate("delete from component where id = ?", idList, idList.size(),
+            (statement, id) -> statement.setLong(1, id));
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    deleted.add(idList.get(i));
+                }
+                i++;
+            }
+        }
+        idList.forEach(this::evict);
+        return deleted;
+    }
+
+    private void evict(Long id) {
+        entityManagerFactory.getCache().evict(Component.class, id);
+    }
+}
@@ -0,0 +1,83 @@
+package com.innvo.repository;
+
+import com.innvo.config.Constants;
+import com.innvo.config.audit.AuditEventConverter;
+
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.actuate.audit.AuditEventRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An implementation of Spring Boot's AuditEventRepository.
+ * <p>
+ * Events are written asynchronously by the {@link AsyncAuditEventWriter}, so they can be found once the writer
+ * has flushed them.
+ */
+@Repository
+public class CustomAuditEventRepository implements AuditEventRepository {
+
+    private static final String AUTHORIZATION_FAILURE = "AUTHORIZATION_FAILURE";
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final AsyncAuditEventWriter asyncAuditEventWriter;
+
+    private final AuditEventConverter auditEventConverter;
+
+    public CustomAuditEventRepository(PersistenceAuditEventRepository persistenceAuditEventRepository,
+            AsyncAuditEventWriter asyncAuditEventWriter, AuditEventConverter auditEventConverter) {
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.asyncAuditEventWriter = asyncAuditEventWriter;
+        this.auditEventConverter = auditEventConverter;
+    }
+
+    @Override
+    public void add(AuditEvent event) {
+        if (!AUTHORIZATION_FAILURE.equals(event.getType()) &&
+            !Constants.ANONYMOUS_USER.equals(event.getPrincipal())) {
+            asyncAuditEventWriter.write(event);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AuditEvent> find(Date after) {
+        return auditEventConverter.convertToAuditEvent(
+            persistenceAuditEventRepository.findByAuditEventDateAfter(toLocalDateTime(after)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AuditEvent> find(String principal, Date after) {
+        if (principal == null) {
+            return find(after);
+        }
+        return auditEventConverter.convertToAuditEvent(
+            persistenceAuditEventRepository.findByPrincipalAndAuditEventDateAfter(principal, toLocalDateTime(after)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AuditEvent> find(String principal, Date after, String type) {
+        if (type == null) {
+            return find(principal, after);
+        }
+        if (principal == null) {
+            return auditEventConverter.convertToAuditEvent(
+                persistenceAuditEventRepository.findByAuditEventDateAfterAndAuditEventType(toLocalDateTime(after), type));
+        }
+        return auditEventConverter.convertToAuditEvent(persistenceAuditEventRepository
+            .findByPrincipalAndAuditEventDateAfterAndAuditEventType(principal, toLocalDateTime(after), type));
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        Date after = date != null ? date : new Date(0);
+        return LocalDateTime.ofInstant(after.toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,77 @@
+package com.innvo.repository;
+
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Repository of the hot key list, which survives the restarts of all the instances.
+ * <p>
+ * The instances replace the list concurrently: the keys are upserted, in key order so that concurrent transactions
+ * lock the rows in the same order, and only the keys missing from the new list are deleted, so that two instances
+ * never insert the same key.
+ */
+@Repository
+public class HotKeyRepository {
+
+    /**
+     * The kind of the component ids.
+     */
+    public static final String COMPONENT = "component";
+
+    /**
+     * The kind of the search queries.
+     */
+    public static final String QUERY = "query";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String upsertStatement;
+
+    public HotKeyRepository(JdbcTemplate jdbcTemplate, JpaProperties jpaProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertStatement = jpaProperties.getDatabase() == Database.POSTGRESQL ?
+            "insert into hot_key (kind, hot_key, score) values (?, ?, ?) on conflict (kind, hot_key) do update " +
+                "set score = excluded.score" :
+            "merge into hot_key (kind, hot_key, score) key (kind, hot_key) values (?, ?, ?)";
+    }
+
+    /**
+     * Get the hottest keys of a kind.
+     *
+     * @param kind the kind of the keys
+     * @param limit the maximum number of keys
+     * @return the keys, hottest first
+     */
+    public List<String> findHottest(String kind, int limit) {
+        return jdbcTemplate.query("select hot_key from hot_key where kind = ? order by score desc, hot_key",
+            ps -> {
+                ps.setString(1, kind);
+                ps.setMaxRows(limit);
+            }, (rs, rowNum) -> rs.getString(1));
+    }
+
+    /**
+     * Replace the hot keys of a kind, to be called in a transaction.
+     *
+     * @param kind the kind of the keys
+     * @param scores the keys, with their score, at least one
+     */
+    public void replace(String kind, Map<String, Double> scores) {
+        List<Object[]> rows = new ArrayList<>(scores.size());
+        new TreeMap<>(scores).forEach((key, score) -> rows.add(new Object[]{kind, key, score}));
+        jdbcTemplate.batchUpdate(upsertStatement, rows);
+        List<Object> parameters = new ArrayList<>(scores.size() + 1);
+        parameters.add(kind);
+        parameters.addAll(scores.keySet());
+        jdbcTemplate.update("delete from hot_key where kind = ? and hot_key not in (" +
+            String.join(", ", Collections.nCopies(scores.size(), "?")) + ")", parameters.toArray());
+    }
+}
@@ -0,0 +1,50 @@
+package com.innvo.repository;
+
+import com.innvo.domain.IdAllocationCounters;
+
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository allocating blocks of ids from hibernate_sequence, for the bulk writes.
+ * <p>
+ * Each value taken from the sequence is the first id of a block of {@link #BLOCK_SIZE} ids, as with the pooled-lo
+ * optimizer of the entities, so the blocks never collide with the ids allocated by Hibernate, on any instance.
+ */
+@Repository
+public class IdBlockRepository {
+
+    /**
+     * The increment of hibernate_sequence.
+     */
+    public static final int BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String blocksQuery;
+
+    public IdBlockRepository(JdbcTemplate jdbcTemplate, JpaProperties jpaProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blocksQuery = jpaProperties.getDatabase() == Database.POSTGRESQL ?
+            "select nextval('hibernate_sequence') from generate_series(1, ?)" :
+            "select next value for hibernate_sequence from system_range(1, ?)";
+    }
+
+    /**
+     * Allocate the blocks of ids for a number of rows, with a single query.
+     *
+     * @param count the number of rows
+     * @return the first id of each block, the blocks not being contiguous
+     */
+    public List<Long> allocate(long count) {
+        long blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        List<Long> firstIds = jdbcTemplate.queryForList(blocksQuery, Long.class, blocks);
+        IdAllocationCounters.sequenceCalled(blocks);
+        IdAllocationCounters.idsAllocated(count);
+        return firstIds;
+    }
+}
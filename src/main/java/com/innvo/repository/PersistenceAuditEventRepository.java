@@ -0,0 +1,25 @@
+package com.innvo.repository;
+
+import com.innvo.domain.PersistentAuditEvent;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the PersistentAuditEvent entity.
+ * <p>
+ * Events are written by the {@link AsyncAuditEventWriter}, this repository is used to read them.
+ */
+public interface PersistenceAuditEventRepository extends JpaRepository<PersistentAuditEvent, Long> {
+
+    List<PersistentAuditEvent> findByAuditEventDateAfter(LocalDateTime after);
+
+    List<PersistentAuditEvent> findByAuditEventDateAfterAndAuditEventType(LocalDateTime after, String type);
+
+    List<PersistentAuditEvent> findByPrincipalAndAuditEventDateAfter(String principal, LocalDateTime after);
+
+    List<PersistentAuditEvent> findByPrincipalAndAuditEventDateAfterAndAuditEventType(String principal,
+        LocalDateTime after, String type);
+}
@@ -0,0 +1,136 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Service maintaining the audit event tables.
+ * <p>
+ * On PostgreSQL, the audit tables are partitioned by month of event date: upcoming monthly partitions are created
+ * in advance, and the partitions whose whole month is older than the retention period are dropped, which is
+ * immediate whatever their size. The default partitions, which receive the events outside of the created months,
+ * have their expired events deleted. On other databases, expired events are deleted.
+ */
+@Service
+public class AuditPartitionService {
+
+    private static final String EVENT_TABLE = "jhi_persistent_audit_event";
+    private static final String DATA_TABLE = "jhi_persistent_audit_evt_data";
+
+    private static final String PARTITION_SUFFIX = "_p";
+    private static final String DEFAULT_PARTITION_SUFFIX = "_default";
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String FIND_PARTITIONS_SQL = "select c.relname from pg_inherits i " +
+        "join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent where p.relname = ?";
+
+    private final Logger log = LoggerFactory.getLogger(AuditPartitionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final boolean partitioned;
+
+    public AuditPartitionService(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties,
+            JpaProperties jpaProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.applicationProperties = applicationProperties;
+        this.partitioned = jpaProperties.getDatabase() == Database.POSTGRESQL;
+    }
+
+    /**
+     * Create the upcoming audit partitions and purge the expired audit events.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:00 (am).
+     */
+    @Scheduled(cron = "0 0 1 * * ?")
+    public void maintainAuditTables() {
+        ApplicationProperties.Audit audit = applicationProperties.getAudit();
+        LocalDate expiry = LocalDate.now().minusDays(audit.getRetentionInDays());
+        if (partitioned) {
+            YearMonth month = YearMonth.now();
+            for (int i = 0; i <= audit.getPartitionsAhead(); i++) {
+                createPartitions(month.plusMonths(i));
+            }
+            dropPartitionsBefore(YearMonth.from(expiry));
+            deleteEventsBefore(EVENT_TABLE + DEFAULT_PARTITION_SUFFIX, DATA_TABLE + DEFAULT_PARTITION_SUFFIX, expiry);
+        } else {
+            deleteEventsBefore(EVENT_TABLE, DATA_TABLE, expiry);
+        }
+    }
+
+    private void createPartitions(YearMonth month) {
+        try {
+            createPartition(EVENT_TABLE, month);
+            createPartition(DATA_TABLE, month);
+        } catch (DataAccessException e) {
+            log.error("Could not create the audit partitions of {}", month, e);
+        }
+    }
+
+    private void createPartition(String table, YearMonth month) {
+        jdbcTemplate.execute(String.format("create table if not exists %s partition of %s " +
+                "for values from ('%s') to ('%s')",
+            partitionName(table, month), table, month.atDay(1), month.plusMonths(1).atDay(1)));
+    }
+
+    /**
+     * Drop the partitions of the months before the given month, the event data first.
+     */
+    private void dropPartitionsBefore(YearMonth expiry) {
+        for (String table : new String[] {DATA_TABLE, EVENT_TABLE}) {
+            List<String> partitions = jdbcTemplate.queryForList(FIND_PARTITIONS_SQL, String.class, table);
+            for (String partition : partitions) {
+                YearMonth month = partitionMonth(table, partition);
+                if (month != null && month.isBefore(expiry)) {
+                    log.info("Dropping expired audit partition {}", partition);
+                    jdbcTemplate.execute("drop table if exists " + partition);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete the events before the given date, the event data first.
+     */
+    private void deleteEventsBefore(String eventTable, String dataTable, LocalDate expiry) {
+        Timestamp before = Timestamp.valueOf(expiry.atStartOfDay());
+        jdbcTemplate.update("delete from " + dataTable + " where event_id in " +
+            "(select event_id from " + eventTable + " where event_date < ?)", before);
+        int deleted = jdbcTemplate.update("delete from " + eventTable + " where event_date < ?", before);
+        log.debug("Deleted {} expired audit events from {}", deleted, eventTable);
+    }
+
+    private static String partitionName(String table, YearMonth month) {
+        return table + PARTITION_SUFFIX + month.format(PARTITION_MONTH);
+    }
+
+    private static YearMonth partitionMonth(String table, String partition) {
+        String prefix = table + PARTITION_SUFFIX;
+        if (!partition.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(prefix.length()), PARTITION_MONTH);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.config.ElasticsearchConfiguration.CustomElasticsearchTemplate;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service writing entities to Elasticsearch through a shared {@link BulkProcessor}.
+ * <p>
+ * Index and delete requests are queued and flushed as bulk requests when the configured number of actions,
+ * number of bytes or flush interval is reached. The number of bulk requests in flight is bounded, and items
+ * rejected by a busy cluster are retried with an exponential backoff.
+ * <p>
+ * Documents are not refreshed after each write: they become searchable with the index refresh interval,
+ * but are immediately visible to get requests.
+ */
+@Service
+public class BulkIndexService {
+
+    private static final String METRIC_PENDING = "elasticsearch.bulk.pending";
+    private static final String METRIC_FLUSH = "elasticsearch.bulk.flush";
+    private static final String METRIC_FAILURES = "elasticsearch.bulk.failures";
+
+    private final Logger log = LoggerFactory.getLogger(BulkIndexService.class);
+
+    private final CustomElasticsearchTemplate elasticsearchTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final MetricRegistry metricRegistry;
+
+    private final AtomicLong pendingActions = new AtomicLong();
+
+    private final Map<Long, Timer.Context> flushTimers = new ConcurrentHashMap<>();
+
+    private BulkProcessor bulkProcessor;
+
+    private Timer flushTimer;
+
+    private Meter failures;
+
+    public BulkIndexService(CustomElasticsearchTemplate elasticsearchTemplate, ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.applicationProperties = applicationProperties;
+        this.metricRegistry = metricRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        ApplicationProperties.Elasticsearch.Bulk bulk = applicationProperties.getElasticsearch().getBulk();
+        log.debug("Starting Elasticsearch bulk processor, flushing every {} actions, {} bytes or {} ms",
+            bulk.getActions(), bulk.getSizeInBytes(), bulk.getFlushIntervalInMs());
+        flushTimer = metricRegistry.timer(METRIC_FLUSH);
+        failures = metricRegistry.meter(METRIC_FAILURES);
+        metricRegistry.register(METRIC_PENDING, (Gauge<Long>) pendingActions::get);
+        bulkProcessor = BulkProcessor.builder(elasticsearchTemplate.getClient(), new MetricsListener())
+            .setName("adapcomponent-bulk")
+            .setBulkActions(bulk.getActions())
+            .setBulkSize(new ByteSizeValue(bulk.getSizeInBytes()))
+            .setFlushInterval(TimeValue.timeValueMillis(bulk.getFlushIntervalInMs()))
+            .setConcurrentRequests(bulk.getConcurrentRequests())
+            .setBackoffPolicy(BackoffPolicy.exponentialBackoff(
+                TimeValue.timeValueMillis(bulk.getBackoffDelayInMs()), bulk.getBackoffMaxRetries()))
+            .build();
+    }
+
+    /**
+     * Queue an entity for indexing.
+     *
+     * @param entity the entity to index, annotated with {@code @Document}
+     */
+    public void index(Object entity) {
+        IndexQuery query = new IndexQuery();
+        query.setObject(entity);
+        add(elasticsearchTemplate.prepareBytesIndex(query).request());
+    }
+
+    /**
+     * Queue the deletion of a document.
+     *
+     * @param clazz the entity class of the document
+     * @param id the id of the document
+     */
+    public void delete(Class<?> clazz, Object id) {
+        ElasticsearchPersistentEntity<?> persistentEntity = elasticsearchTemplate.getPersistentEntityFor(clazz);
+        add(elasticsearchTemplate.getClient()
+            .prepareDelete(persistentEntity.getIndexName(), persistentEntity.getIndexType(), id.toString())
+            .request());
+    }
+
+    private void add(ActionRequest<?> request) {
+        // Counted before it is queued, as the processor may send it at once, and not counted if it is rejected,
+        // such as once the processor is closed
+        pendingActions.incrementAndGet();
+        try {
+            bulkProcessor.add(request);
+        } catch (RuntimeException e) {
+            pendingActions.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Send all queued requests now.
+     */
+    public void flush() {
+        bulkProcessor.flush();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        log.info("Closing Elasticsearch bulk processor, {} pending actions", pendingActions.get());
+        long timeout = applicationProperties.getElasticsearch().getBulk().getCloseTimeoutInSeconds();
+        if (!bulkProcessor.awaitClose(timeout, TimeUnit.SECONDS)) {
+            log.warn("Elasticsearch bulk processor did not complete within {} seconds", timeout);
+        }
+    }
+
+    private class MetricsListener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            flushTimers.put(executionId, flushTimer.time());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            complete(executionId, request);
+            if (response.hasFailures()) {
+                for (BulkItemResponse item : response.getItems()) {
+                    if (item.isFailed()) {
+                        failures.mark();
+                        log.warn("Failed to {} document {}/{}/{}: {}", item.getOpType(), item.getIndex(), item.getType(),
+                            item.getId(), item.getFailureMessage());
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            complete(executionId, request);
+            failures.mark(request.numberOfActions());
+            log.error("Failed to execute bulk request of {} actions", request.numberOfActions(), failure);
+        }
+
+        private void complete(long executionId, BulkRequest request) {
+            Timer.Context context = flushTimers.remove(executionId);
+            if (context != null) {
+                context.stop();
+            }
+            pendingActions.addAndGet(-request.numberOfActions());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.repository.ComponentRepository;
+import com.innvo.repository.HotKeyRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Warm-up stage loading the hottest components in the second-level cache, then running the hottest searches.
+ * <p>
+ * The hot components and queries are read from the hot key list; when none were recorded, the most recently changed
+ * components and the configured queries are used instead.
+ */
+@Service
+@Order(1)
+public class CacheWarmUpStage implements WarmUpStage {
+
+    private final Logger log = LoggerFactory.getLogger(CacheWarmUpStage.class);
+
+    private final ComponentService componentService;
+
+    private final ComponentRepository componentRepository;
+
+    private final HotKeyRepository hotKeyRepository;
+
+    private final ComponentSearchBackend componentSearchBackend;
+
+    private final ApplicationProperties.WarmUp.Cache properties;
+
+    public CacheWarmUpStage(ComponentService componentService, ComponentRepository componentRepository,
+            HotKeyRepository hotKeyRepository, ComponentSearchBackend componentSearchBackend,
+            ApplicationProperties applicationProperties) {
+        this.componentService = componentService;
+        this.componentRepository = componentRepository;
+        this.hotKeyRepository = hotKeyRepository;
+        this.componentSearchBackend = componentSearchBackend;
+        this.properties = applicationProperties.getWarmUp().getCache();
+    }
+
+    @Override
+    public String getName() {
+        return "cache";
+    }
+
+    @Override
+    public long getTimeoutInMs() {
+        return properties.getTimeoutInSeconds() * 1000L;
+    }
+
+    @Override
+    public void run(long deadline) {
+        List<Long> ids = hotKeyRepository.findHottest(HotKeyRepository.COMPONENT, properties.getMaxComponents())
+            .stream().map(Long::valueOf).collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            ids = componentRepository.findIdsOrderByChangeSequenceDesc(new PageRequest(0, properties.getMaxComponents()));
+        }
+        int loaded = 0;
+        for (int i = 0; i < ids.size() && System.currentTimeMillis() < deadline; i += properties.getBatchSize()) {
+            loaded += componentService.findAllById(ids.subList(i, Math.min(i + properties.getBatchSize(), ids.size())))
+                .size();
+        }
+        List<String> queries = hotKeyRepository.findHottest(HotKeyRepository.QUERY, 100);
+        if (queries.isEmpty()) {
+            queries = properties.getSearchQueries();
+        }
+        int searched = 0;
+        for (String query : queries) {
+            if (System.currentTimeMillis() >= deadline) {
+                break;
+            }
+            try {
+                componentSearchBackend.search(query, new PageRequest(0, 20));
+                searched++;
+            } catch (RuntimeException e) {
+                log.debug("Warm-up search {} failed: {}", query, e.toString());
+            }
+        }
+        log.info("Loaded {} of {} hot components, ran {} of {} hot searches", loaded, ids.size(), searched,
+            queries.size());
+    }
+}
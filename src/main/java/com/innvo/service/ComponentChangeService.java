@@ -0,0 +1,389 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.domain.ComponentChange;
+import com.innvo.repository.ComponentChangeRepository;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.IFunction;
+import com.hazelcast.core.ITopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service publishing the changes of Components, and pushing them to Server-Sent Events subscribers.
+ * <p>
+ * Changes are published to a Hazelcast topic, so that the subscribers of every instance receive them, and are
+ * identified by their position in the change sequence. Each instance keeps the latest changes, to resume a
+ * subscription from its Last-Event-ID; when the changes after it are no longer available, a "reset" event is sent
+ * instead, and the client should catch up with the changes endpoint.
+ * <p>
+ * Changes committed by different instances may arrive out of sequence order, so a client may have missed a change
+ * below its Last-Event-ID. The latest changes are kept in sequence order: a subscription is resumed only when no
+ * change below its Last-Event-ID is still missing, and from before the first change that arrived late, replaying
+ * the changes in sequence order. A client may then get a change twice, and should apply it by its sequence.
+ * <p>
+ * Each subscriber has a bounded queue, drained by the task executor: an idle subscriber holds no thread, and a
+ * subscriber falling too far behind is disconnected, to resume from its last event.
+ * <p>
+ * The version and last modification date of the whole collection are kept in Hazelcast, as the validators of the
+ * list and search pages. The version is the highest published change sequence, so that it keeps growing when the
+ * cluster restarts.
+ */
+@Service
+public class ComponentChangeService {
+
+    private static final String TOPIC_NAME = "componentChanges";
+    private static final String BULK_TOPIC_NAME = "componentBulkChanges";
+    private static final String COLLECTION_VERSION_NAME = "componentCollectionVersion";
+    private static final String COLLECTION_LAST_MODIFIED_NAME = "componentCollectionLastModified";
+
+    private static final String METRIC_SUBSCRIBERS = "components.changes.subscribers";
+    private static final String METRIC_OVERFLOWS = "components.changes.overflows";
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Logger log = LoggerFactory.getLogger(ComponentChangeService.class);
+
+    private final HazelcastInstance hazelcastInstance;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ComponentChangeRepository componentChangeRepository;
+
+    private final CacheManager cacheManager;
+
+    private final Executor taskExecutor;
+
+    private final MetricRegistry metricRegistry;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final NavigableMap<Long, ComponentChange> history = new TreeMap<>();
+
+    private final NavigableSet<Long> lateSequences = new TreeSet<>();
+
+    private ITopic<ComponentChange> topic;
+
+    private ITopic<Long> bulkTopic;
+
+    private String bulkListenerId;
+
+    private IAtomicLong collectionVersion;
+
+    private IAtomicLong collectionLastModified;
+
+    private String listenerId;
+
+    private Meter overflows;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public ComponentChangeService(HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties,
+            ComponentChangeRepository componentChangeRepository, CacheManager cacheManager,
+            @Qualifier("taskExecutor") Executor taskExecutor, MetricRegistry metricRegistry) {
+        this.hazelcastInstance = hazelcastInstance;
+        this.applicationProperties = applicationProperties;
+        this.componentChangeRepository = componentChangeRepository;
+        this.cacheManager = cacheManager;
+        this.taskExecutor = taskExecutor;
+        this.metricRegistry = metricRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        overflows = metricRegistry.meter(METRIC_OVERFLOWS);
+        metricRegistry.register(METRIC_SUBSCRIBERS, (Gauge<Integer>) subscribers::size);
+        topic = hazelcastInstance.getTopic(TOPIC_NAME);
+        listenerId = topic.addMessageListener(message -> receive(message.getMessageObject()));
+        bulkTopic = hazelcastInstance.getTopic(BULK_TOPIC_NAME);
+        bulkListenerId = bulkTopic.addMessageListener(message -> receiveBulk(message.getMessageObject()));
+        collectionVersion = hazelcastInstance.getAtomicLong(COLLECTION_VERSION_NAME);
+        collectionVersion.compareAndSet(0, componentChangeRepository.currentSequence());
+        collectionLastModified = hazelcastInstance.getAtomicLong(COLLECTION_LAST_MODIFIED_NAME);
+        collectionLastModified.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    /**
+     * Stop listening to the changes, and complete the subscriptions. Only the first call has an effect, so that
+     * {@link com.innvo.config.GracefulShutdown} can call it before Hazelcast shuts down.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        topic.removeMessageListener(listenerId);
+        bulkTopic.removeMessageListener(bulkListenerId);
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Publish a committed change, and evict the component from the cache of the components read by id.
+     *
+     * @param change the change
+     */
+    public void publish(ComponentChange change) {
+        Cache cache = cacheManager.getCache(ComponentService.CACHE_NAME);
+        if (cache != null) {
+            cache.evict(change.getComponentId());
+        }
+        collectionVersion.alter(new Max(change.getSequence()));
+        collectionLastModified.alter(new Max(System.currentTimeMillis()));
+        topic.publish(change);
+    }
+
+    /**
+     * Publish a committed bulk write, too large to be sent change by change.
+     * <p>
+     * Subscribers get a "reset" event, to catch up with the changes endpoint.
+     *
+     * @param since the position in the change sequence before the bulk write
+     * @param last the position of the last change of the bulk write
+     */
+    public void publishBulk(long since, long last) {
+        collectionVersion.alter(new Max(last));
+        collectionLastModified.alter(new Max(System.currentTimeMillis()));
+        bulkTopic.publish(since);
+    }
+
+    /**
+     * Record that a component changed ahead of its published change, such as a write acknowledged behind, so that
+     * the date of the last change of the collection does not validate stale copies of it.
+     */
+    public void markModified() {
+        collectionLastModified.alter(new Max(System.currentTimeMillis()));
+    }
+
+    /**
+     * Get the version of the collection, which changes with every published change.
+     *
+     * @return the version
+     */
+    public long getCollectionVersion() {
+        return collectionVersion.get();
+    }
+
+    /**
+     * Get the date of the last change, or of the cluster start.
+     *
+     * @return the date, in milliseconds since the epoch
+     */
+    public long getCollectionLastModified() {
+        return collectionLastModified.get();
+    }
+
+    /**
+     * Tell whether the changes up to a date had time to become searchable.
+     *
+     * @param lastModified the date, in milliseconds since the epoch
+     * @return true if the search results reflect the changes up to this date
+     */
+    public boolean isIndexed(long lastModified) {
+        return System.currentTimeMillis() - lastModified >= applicationProperties.getChanges().getSearchValidatorDelayInMs();
+    }
+
+    /**
+     * Subscribe to the changes.
+     *
+     * @param lastEventId the sequence of the last change received by the client, or null for a new subscription
+     * @return the emitter of the changes
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        ApplicationProperties.Changes changes = applicationProperties.getChanges();
+        SseEmitter emitter = new SseEmitter(changes.getEmitterTimeoutInMs());
+        Subscriber subscriber = new Subscriber(emitter, changes.getSubscriberQueueCapacity());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        synchronized (history) {
+            if (lastEventId != null) {
+                Long resumeAfter = getResumePosition(lastEventId);
+                List<ComponentChange> missed = resumeAfter == null ? null :
+                    new ArrayList<>(history.tailMap(resumeAfter, false).values());
+                if (missed != null && missed.size() < changes.getSubscriberQueueCapacity()) {
+                    missed.forEach(subscriber::offer);
+                } else {
+                    subscriber.offer(new Reset(lastEventId));
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        log.debug("New component change subscriber, resuming after {}", lastEventId);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${application.changes.heartbeat-interval-in-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+
+    /**
+     * Get the position to resume a subscription from, with the history locked.
+     *
+     * @param lastEventId the sequence of the last change received by the client
+     * @return the position, or null if the client may have missed changes no longer or not yet available here
+     */
+    private Long getResumePosition(long lastEventId) {
+        if (history.isEmpty() || history.firstKey() > lastEventId + 1) {
+            return null;
+        }
+        long first = history.firstKey();
+        if (lastEventId >= first && history.subMap(first, true, lastEventId, true).size() != lastEventId - first + 1) {
+            // A change below the last event is still on its way
+            return null;
+        }
+        Long firstLate = lateSequences.isEmpty() ? null : lateSequences.first();
+        return firstLate != null && firstLate <= lastEventId ? firstLate - 1 : lastEventId;
+    }
+
+    private void receive(ComponentChange change) {
+        synchronized (history) {
+            if (!history.isEmpty() && history.lastKey() > change.getSequence()) {
+                lateSequences.add(change.getSequence());
+            }
+            history.put(change.getSequence(), change);
+            while (history.size() > applicationProperties.getChanges().getHistorySize()) {
+                history.pollFirstEntry();
+            }
+            lateSequences.headSet(history.firstKey()).clear();
+            subscribers.forEach(subscriber -> subscriber.offer(change));
+        }
+    }
+
+    private void receiveBulk(long since) {
+        synchronized (history) {
+            // Subscriptions cannot be resumed across the bulk write
+            history.clear();
+            lateSequences.clear();
+            subscribers.forEach(subscriber -> subscriber.offer(new Reset(since)));
+        }
+    }
+
+    private class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Queue<Object> queue;
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(Object item) {
+            if (!queue.offer(item)) {
+                overflows.mark();
+                log.debug("Component change subscriber is too slow, disconnecting it");
+                subscribers.remove(this);
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    taskExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    log.warn("Could not send component changes, disconnecting subscriber: {}", e.toString());
+                    subscribers.remove(this);
+                    emitter.complete();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while ((item = queue.poll()) != null) {
+                    send(item);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Component change subscriber disconnected: {}", e.toString());
+                subscribers.remove(this);
+                queue.clear();
+            } finally {
+                draining.set(false);
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(Object item) throws IOException {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else if (item instanceof Reset) {
+                emitter.send(SseEmitter.event().name("reset").data(((Reset) item).since));
+            } else {
+                ComponentChange change = (ComponentChange) item;
+                emitter.send(SseEmitter.event()
+                    .id(String.valueOf(change.getSequence()))
+                    .name(change.getType().name().toLowerCase())
+                    .data(change, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    /**
+     * Raises an atomic long to a value, so that concurrent changes do not move it back.
+     */
+    private static class Max implements IFunction<Long, Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long value;
+
+        Max(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public Long apply(Long current) {
+            return Math.max(current, value);
+        }
+    }
+
+    /**
+     * Tells a subscriber to catch up with the changes since its last event.
+     */
+    private static class Reset {
+
+        private final long since;
+
+        Reset(long since) {
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.domain.Component;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Service importing components from a stream of JSON objects, on any database.
+ * <p>
+ * The components are read one batch at a time: each batch is validated in parallel chunks on the task executor,
+ * then written in its own transaction, before the next one is read. The stream is thus read only as fast as the
+ * database writes it, and the memory used does not depend on its length. Invalid components are rejected, the
+ * valid ones of the batch are still written.
+ */
+@Service
+public class ComponentImportService {
+
+    private static final String METRIC_ROWS = "components.import.rows";
+
+    private final Logger log = LoggerFactory.getLogger(ComponentImportService.class);
+
+    private final ComponentService componentService;
+
+    private final ComponentSearchBackend componentSearchBackend;
+
+    private final ComponentChangeService componentChangeService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final Executor taskExecutor;
+
+    private final int batchSize;
+
+    private final int validationChunks;
+
+    private final Meter rows;
+
+    public ComponentImportService(ComponentService componentService, ComponentSearchBackend componentSearchBackend,
+            ComponentChangeService componentChangeService, ObjectMapper objectMapper, Validator validator,
+            @Qualifier("taskExecutor") Executor taskExecutor, ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
+        this.componentService = componentService;
+        this.componentSearchBackend = componentSearchBackend;
+        this.componentChangeService = componentChangeService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.taskExecutor = taskExecutor;
+        this.batchSize = applicationProperties.getBulkImport().getBatchSize();
+        this.validationChunks = applicationProperties.getBulkImport().getValidationChunks();
+        this.rows = metricRegistry.meter(METRIC_ROWS);
+    }
+
+    /**
+     * Import components.
+     * <p>
+     * The parser must hold either a JSON array of components, or a sequence of components, such as
+     * newline-delimited JSON. Components with an id, or which are not valid, are rejected.
+     *
+     * @param parser the parser of the components
+     * @param progress called with the progress of the import, after each batch is written
+     * @return the progress of the import, once the last batch is written
+     * @throws IOException if the components cannot be read or parsed; the batches written until then are kept
+     */
+    public Progress importComponents(JsonParser parser, Consumer<Progress> progress) throws IOException {
+        long start = System.currentTimeMillis();
+        long read = 0;
+        long inserted = 0;
+        List<JsonNode> batch = new ArrayList<>(batchSize);
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            token = parser.nextToken();
+        }
+        while (token != null && token != JsonToken.END_ARRAY) {
+            batch.add(parser.readValueAsTree());
+            if (batch.size() == batchSize) {
+                inserted += write(batch);
+                read += batch.size();
+                batch.clear();
+                progress.accept(new Progress(read, inserted, System.currentTimeMillis() - start));
+            }
+            token = parser.nextToken();
+        }
+        if (!batch.isEmpty()) {
+            inserted += write(batch);
+            read += batch.size();
+            progress.accept(new Progress(read, inserted, System.currentTimeMillis() - start));
+        }
+        log.info("Imported {} components out of {} rows in {} ms", inserted, read, System.currentTimeMillis() - start);
+        return new Progress(read, inserted, System.currentTimeMillis() - start);
+    }
+
+    private int write(List<JsonNode> batch) {
+        int chunkSize = (batch.size() + validationChunks - 1) / validationChunks;
+        List<CompletableFuture<List<Component>>> chunks = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i += chunkSize) {
+            List<JsonNode> chunk = batch.subList(i, Math.min(i + chunkSize, batch.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> validate(chunk), taskExecutor));
+        }
+        List<Component> components = new ArrayList<>(batch.size());
+        for (CompletableFuture<List<Component>> chunk : chunks) {
+            components.addAll(chunk.join());
+        }
+        rows.mark(batch.size());
+        if (components.isEmpty()) {
+            return 0;
+        }
+        List<Component> saved = componentService.saveAll(components);
+        saved.forEach(componentSearchBackend::index);
+        componentChangeService.publishBulk(saved.get(0).getChangeSequence() - 1,
+            saved.get(saved.size() - 1).getChangeSequence());
+        return saved.size();
+    }
+
+    private List<Component> validate(List<JsonNode> nodes) {
+        List<Component> components = new ArrayList<>(nodes.size());
+        for (JsonNode node : nodes) {
+            if (!node.isObject()) {
+                continue;
+            }
+            try {
+                Component component = objectMapper.treeToValue(node, Component.class);
+                if (component.getId() == null && validator.validate(component).isEmpty()) {
+                    components.add(component);
+                }
+            } catch (JsonProcessingException e) {
+                log.debug("Rejected component {}: {}", node, e.getOriginalMessage());
+            }
+        }
+        return components;
+    }
+
+    /**
+     * The progress of an import.
+     */
+    public static class Progress {
+
+        private final long rows;
+
+        private final long inserted;
+
+        private final long elapsedInMs;
+
+        Progress(long rows, long inserted, long elapsedInMs) {
+            this.rows = rows;
+            this.inserted = inserted;
+            this.elapsedInMs = elapsedInMs;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getInserted() {
+            return inserted;
+        }
+
+        public long getElapsedInMs() {
+            return elapsedInMs;
+        }
+    }
+}
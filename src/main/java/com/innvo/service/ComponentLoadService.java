@@ -0,0 +1,215 @@
+package com.innvo.service;
+
+import com.innvo.domain.Component;
+import com.innvo.repository.ComponentChangeRepository;
+import com.innvo.repository.ComponentCopyRepository;
+import com.innvo.repository.ComponentRepository;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.LongConsumer;
+
+/**
+ * Service loading large numbers of components, with the PostgreSQL COPY protocol.
+ * <p>
+ * The whole load is one transaction. Once it is committed, the change feed subscribers are told to catch up, and
+ * the loaded components are indexed in the background, in change sequence order.
+ */
+@Service
+public class ComponentLoadService {
+
+    private static final String METRIC_ROWS = "components.load.rows";
+
+    private static final int PROGRESS_INTERVAL = 100000;
+
+    private static final int INDEX_PAGE_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(ComponentLoadService.class);
+
+    private final ComponentCopyRepository componentCopyRepository;
+
+    private final ComponentChangeRepository componentChangeRepository;
+
+    private final ComponentRepository componentRepository;
+
+    private final ComponentSearchBackend componentSearchBackend;
+
+    private final ComponentChangeService componentChangeService;
+
+    private final Executor taskExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Meter rows;
+
+    private final boolean supported;
+
+    public ComponentLoadService(ComponentCopyRepository componentCopyRepository,
+            ComponentChangeRepository componentChangeRepository, ComponentRepository componentRepository,
+            ComponentSearchBackend componentSearchBackend, ComponentChangeService componentChangeService,
+            @Qualifier("taskExecutor") Executor taskExecutor, PlatformTransactionManager transactionManager,
+            MetricRegistry metricRegistry, JpaProperties jpaProperties) {
+        this.componentCopyRepository = componentCopyRepository;
+        this.componentChangeRepository = componentChangeRepository;
+        this.componentRepository = componentRepository;
+        this.componentSearchBackend = componentSearchBackend;
+        this.componentChangeService = componentChangeService;
+        this.taskExecutor = taskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rows = metricRegistry.meter(METRIC_ROWS);
+        this.supported = jpaProperties.getDatabase() == Database.POSTGRESQL;
+    }
+
+    /**
+     * Tell whether the database supports bulk loads.
+     *
+     * @return true on PostgreSQL
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * Load components.
+     * <p>
+     * Rows without a name, or with a name longer than 50 characters, are rejected.
+     *
+     * @param csv the components, as CSV with a "name" header
+     * @param progress called with the number of lines read so far, every 100000 lines
+     * @return the result of the load
+     */
+    public Result load(Reader csv, LongConsumer progress) {
+        long start = System.currentTimeMillis();
+        Result result = transactionTemplate.execute(status -> {
+            long copied = componentCopyRepository.copyIntoStaging(new ProgressReader(csv, progress));
+            long valid = componentCopyRepository.countValidStaged();
+            if (valid == 0) {
+                return new Result(copied, 0, 0, 0, System.currentTimeMillis() - start);
+            }
+            long lastSequence = componentChangeRepository.nextSequences(valid);
+            long firstSequence = lastSequence - valid + 1;
+            int inserted = componentCopyRepository.insertStaged(firstSequence, valid);
+            return new Result(copied, inserted, firstSequence, lastSequence, System.currentTimeMillis() - start);
+        });
+        log.info("Loaded {} components out of {} rows in {} ms", result.getInserted(), result.getRows(),
+            result.getElapsedInMs());
+        if (result.getInserted() > 0) {
+            componentChangeService.publishBulk(result.firstSequence - 1, result.lastSequence);
+            if (componentSearchBackend.requiresIndexing()) {
+                taskExecutor.execute(() -> index(result.firstSequence, result.lastSequence));
+            }
+        }
+        return result;
+    }
+
+    private void index(long firstSequence, long lastSequence) {
+        log.debug("Indexing the components loaded from change {} to {}", firstSequence, lastSequence);
+        long since = firstSequence - 1;
+        List<Component> page;
+        do {
+            page = componentRepository.findByChangeSequenceGreaterThanOrderByChangeSequence(since,
+                new PageRequest(0, INDEX_PAGE_SIZE));
+            for (Component component : page) {
+                if (component.getChangeSequence() > lastSequence) {
+                    return;
+                }
+                componentSearchBackend.index(component);
+                since = component.getChangeSequence();
+            }
+        } while (page.size() == INDEX_PAGE_SIZE);
+    }
+
+    /**
+     * The result of a load.
+     */
+    public static class Result {
+
+        private final long rows;
+
+        private final long inserted;
+
+        private final long firstSequence;
+
+        private final long lastSequence;
+
+        private final long elapsedInMs;
+
+        Result(long rows, long inserted, long firstSequence, long lastSequence, long elapsedInMs) {
+            this.rows = rows;
+            this.inserted = inserted;
+            this.firstSequence = firstSequence;
+            this.lastSequence = lastSequence;
+            this.elapsedInMs = elapsedInMs;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getInserted() {
+            return inserted;
+        }
+
+        public long getElapsedInMs() {
+            return elapsedInMs;
+        }
+    }
+
+    /**
+     * Counts the lines read, and reports them every {@link #PROGRESS_INTERVAL} lines.
+     */
+    private class ProgressReader extends FilterReader {
+
+        private final LongConsumer progress;
+
+        private long lines;
+
+        ProgressReader(Reader in, LongConsumer progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c == '\n') {
+                line();
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            for (int i = offset; i < offset + read; i++) {
+                if (buffer[i] == '\n') {
+                    line();
+                }
+            }
+            return read;
+        }
+
+        private void line() {
+            lines++;
+            rows.mark();
+            if (lines % PROGRESS_INTERVAL == 0) {
+                progress.accept(lines);
+            }
+        }
+    }
+}
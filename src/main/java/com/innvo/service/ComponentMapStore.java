@@ -0,0 +1,171 @@
+package com.innvo.service;
+
+import com.innvo.domain.Component;
+import com.innvo.domain.ComponentChange;
+import com.innvo.repository.ComponentChangeRepository;
+import com.innvo.repository.ComponentRepository;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.hazelcast.core.MapStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists the components written behind, see {@link ComponentWriteBehindService}.
+ * <p>
+ * Each batch is written in one transaction, which takes the change sequence values of its components, so the
+ * change sequence still follows the commit order. Once it is committed, the components are indexed and their
+ * changes published, as the REST resource does for the components it writes itself. A component created, then
+ * updated before it was persisted, is published as created: its version alone does not tell.
+ */
+@Service
+public class ComponentMapStore implements MapStore<Long, Component> {
+
+    private static final String METRIC_STORED = "components.write-behind.stored";
+    private static final String METRIC_STORE = "components.write-behind.store";
+    private static final String METRIC_FAILURES = "components.write-behind.failures";
+
+    private final Logger log = LoggerFactory.getLogger(ComponentMapStore.class);
+
+    private final ComponentRepository componentRepository;
+
+    private final ComponentChangeRepository componentChangeRepository;
+
+    private final ComponentSearchBackend componentSearchBackend;
+
+    private final ComponentChangeService componentChangeService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Meter stored;
+
+    private final Timer store;
+
+    private final Meter failures;
+
+    private volatile long lastStoredAt = System.currentTimeMillis();
+
+    public ComponentMapStore(ComponentRepository componentRepository,
+            ComponentChangeRepository componentChangeRepository, ComponentSearchBackend componentSearchBackend,
+            ComponentChangeService componentChangeService, PlatformTransactionManager transactionManager,
+            MetricRegistry metricRegistry) {
+        this.componentRepository = componentRepository;
+        this.componentChangeRepository = componentChangeRepository;
+        this.componentSearchBackend = componentSearchBackend;
+        this.componentChangeService = componentChangeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stored = metricRegistry.meter(METRIC_STORED);
+        this.store = metricRegistry.timer(METRIC_STORE);
+        this.failures = metricRegistry.meter(METRIC_FAILURES);
+    }
+
+    /**
+     * Get the date of the last batch persisted by this instance, or of its start.
+     *
+     * @return the date, in milliseconds since the epoch
+     */
+    public long getLastStoredAt() {
+        return lastStoredAt;
+    }
+
+    @Override
+    public void store(Long id, Component component) {
+        storeAll(Collections.singletonMap(id, component));
+    }
+
+    @Override
+    public void storeAll(Map<Long, Component> components) {
+        List<Component> batch = new ArrayList<>(components.values());
+        batch.sort(Comparator.comparing(Component::getId));
+        Collection<Long> existing = new HashSet<>();
+        try (Timer.Context ignored = store.time()) {
+            transactionTemplate.execute(status -> {
+                existing.addAll(componentRepository.findIdsByIdIn(components.keySet()));
+                long sequence = componentChangeRepository.nextSequences(batch.size()) - batch.size() + 1;
+                for (Component component : batch) {
+                    component.setChangeSequence(sequence++);
+                }
+                componentRepository.upsertAll(batch);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not persist {} components, Hazelcast will retry: {}", batch.size(), e.toString());
+            failures.mark();
+            throw e;
+        }
+        for (Component component : batch) {
+            componentSearchBackend.index(component);
+            componentChangeService.publish(new ComponentChange(component.getChangeSequence(),
+                existing.contains(component.getId()) ? ComponentChange.Type.UPDATED : ComponentChange.Type.CREATED,
+                component.getId(), component));
+        }
+        stored.mark(batch.size());
+        lastStoredAt = System.currentTimeMillis();
+        log.debug("Persisted {} components", batch.size());
+    }
+
+    @Override
+    public void delete(Long id) {
+        deleteAll(Collections.singleton(id));
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        List<Long> deleted = new ArrayList<>();
+        long firstSequence;
+        try (Timer.Context ignored = store.time()) {
+            firstSequence = transactionTemplate.execute(status -> {
+                deleted.addAll(componentRepository.deleteAllById(ids));
+                long sequence = componentChangeRepository.nextSequences(deleted.size()) - deleted.size() + 1;
+                for (int i = 0; i < deleted.size(); i++) {
+                    componentChangeRepository.saveTombstone(deleted.get(i), sequence + i);
+                }
+                return sequence;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not delete {} components, Hazelcast will retry: {}", ids.size(), e.toString());
+            failures.mark();
+            throw e;
+        }
+        for (int i = 0; i < deleted.size(); i++) {
+            componentSearchBackend.delete(deleted.get(i));
+            componentChangeService.publish(new ComponentChange(firstSequence + i, ComponentChange.Type.DELETED,
+                deleted.get(i), null));
+        }
+        lastStoredAt = System.currentTimeMillis();
+    }
+
+    @Override
+    public Component load(Long id) {
+        return componentRepository.findOne(id);
+    }
+
+    @Override
+    public Map<Long, Component> loadAll(Collection<Long> ids) {
+        Map<Long, Component> components = new HashMap<>();
+        for (Component component : componentRepository.findAll(ids)) {
+            components.put(component.getId(), component);
+        }
+        return components;
+    }
+
+    @Override
+    public Iterable<Long> loadAllKeys() {
+        // Components are loaded on demand
+        return null;
+    }
+}
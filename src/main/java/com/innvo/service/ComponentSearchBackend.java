@@ -0,0 +1,44 @@
+package com.innvo.service;
+
+import com.innvo.domain.Component;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Search backend for Components.
+ * <p>
+ * The backend is selected per deployment with the "application.search.backend" property.
+ */
+public interface ComponentSearchBackend {
+
+    /**
+     * Search for the components corresponding to the query.
+     *
+     * @param query the query
+     * @param pageable the pagination information
+     * @return the page of components
+     */
+    Page<Component> search(String query, Pageable pageable);
+
+    /**
+     * Tell whether saved components must be indexed to become searchable.
+     *
+     * @return false if {@link #index(Component)} does nothing
+     */
+    boolean requiresIndexing();
+
+    /**
+     * Make a saved component searchable.
+     *
+     * @param component the saved component
+     */
+    void index(Component component);
+
+    /**
+     * Remove a deleted component from the search results.
+     *
+     * @param id the id of the deleted component
+     */
+    void delete(Long id);
+}
@@ -0,0 +1,293 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.domain.Component;
+import com.innvo.domain.ComponentChange;
+import com.innvo.repository.ComponentChangeRepository;
+import com.innvo.repository.ComponentRepository;
+import com.innvo.service.dto.ComponentDTO;
+import com.innvo.web.rest.errors.ChangesExpiredException;
+import com.innvo.web.rest.errors.CustomParameterizedException;
+import com.innvo.web.rest.errors.ErrorConstants;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.validation.Validator;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service Implementation for writing Components, and reading their changes.
+ * <p>
+ * Every write and delete takes the next value of the change sequence, so that clients can sync the components
+ * changed since the last value they read. Deleted components are kept as tombstones for the retention period.
+ */
+@Service
+@Transactional
+public class ComponentService {
+
+    /**
+     * The name of the cache of the components read by id, evicted when their change is published.
+     */
+    public static final String CACHE_NAME = "components";
+
+    private static final Set<String> PATCHABLE_FIELDS = Collections.singleton("name");
+    private static final Set<String> READ_ONLY_FIELDS = new HashSet<>(Arrays.asList("id", "version", "changeSequence"));
+
+    private final Logger log = LoggerFactory.getLogger(ComponentService.class);
+
+    private final ComponentRepository componentRepository;
+
+    private final ComponentChangeRepository componentChangeRepository;
+
+    private final Validator validator;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ComponentService(ComponentRepository componentRepository,
+            ComponentChangeRepository componentChangeRepository, Validator validator,
+            ApplicationProperties applicationProperties) {
+        this.componentRepository = componentRepository;
+        this.componentChangeRepository = componentChangeRepository;
+        this.validator = validator;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Save a component.
+     * <p>
+     * An existing component is updated only if it has the version of the entity, unless the entity has no version
+     * set, in which case the last write wins, as for the clients written before components were versioned.
+     *
+     * @param component the entity to save
+     * @return the persisted entity
+     * @throws ConcurrencyFailureException if the component has another version
+     */
+    public Component save(Component component) {
+        log.debug("Request to save Component : {}", component);
+        if (component.getId() != null && !component.hasVersion()) {
+            Component current = componentRepository.findOne(component.getId());
+            if (current != null) {
+                component.setVersion(current.getVersion());
+            }
+        }
+        component.setChangeSequence(componentChangeRepository.nextSequence());
+        // flushed so that the returned entity holds its new version, even inside an enclosing transaction
+        return componentRepository.saveAndFlush(component);
+    }
+
+    /**
+     * Save a batch of new components, with consecutive change sequence values taken at once.
+     *
+     * @param components the entities to save
+     * @return the persisted entities, in change sequence order
+     */
+    public List<Component> saveAll(List<Component> components) {
+        log.debug("Request to save {} Components", components.size());
+        long sequence = componentChangeRepository.nextSequences(components.size()) - components.size() + 1;
+        for (Component component : components) {
+            component.setChangeSequence(sequence++);
+        }
+        List<Component> result = componentRepository.save(components);
+        componentRepository.flush();
+        return result;
+    }
+
+    /**
+     * Apply a JSON Merge Patch to a component, if its version matches, without loading it.
+     * <p>
+     * Only the name can be changed; the id, version and change sequence are read-only and ignored. A patch changing
+     * nothing, such as an empty one, leaves the component and its version as they are.
+     *
+     * @param id the id of the component
+     * @param version the expected version of the component
+     * @param patch the JSON Merge Patch
+     * @return the patched component, or null if it does not exist
+     * @throws ConcurrencyFailureException if the component has another version
+     * @throws CustomParameterizedException if the patch is invalid
+     */
+    public Component patch(Long id, long version, Map<String, Object> patch) {
+        log.debug("Request to patch Component {} at version {} : {}", id, version, patch);
+        String name = getPatchedName(patch);
+        if (name == null) {
+            Component component = componentRepository.findOne(id);
+            if (component != null && component.getVersion() != version) {
+                throw new ConcurrencyFailureException("Component " + id + " does not have version " + version);
+            }
+            return component;
+        }
+        long sequence = componentChangeRepository.nextSequence();
+        if (!componentRepository.updateName(id, version, name, sequence)) {
+            if (!componentRepository.exists(id)) {
+                return null;
+            }
+            throw new ConcurrencyFailureException("Component " + id + " does not have version " + version);
+        }
+        Component component = new Component().name(name);
+        component.setId(id);
+        component.setVersion(version + 1);
+        component.setChangeSequence(sequence);
+        return component;
+    }
+
+    /**
+     * Validate a JSON Merge Patch of a component, and get the name it sets.
+     *
+     * @param patch the JSON Merge Patch
+     * @return the new name, or null if the patch does not change it
+     * @throws CustomParameterizedException if the patch is invalid
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String getPatchedName(Map<String, Object> patch) {
+        String name = null;
+        for (Map.Entry<String, Object> entry : patch.entrySet()) {
+            String field = entry.getKey();
+            if (PATCHABLE_FIELDS.contains(field)) {
+                if (!(entry.getValue() instanceof String) ||
+                    !validator.validateValue(Component.class, field, entry.getValue()).isEmpty()) {
+                    throw new CustomParameterizedException(ErrorConstants.ERR_VALIDATION, field);
+                }
+                name = (String) entry.getValue();
+            } else if (!READ_ONLY_FIELDS.contains(field)) {
+                throw new CustomParameterizedException(ErrorConstants.ERR_VALIDATION, field);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Delete the "id" component, and keep a tombstone of it.
+     *
+     * @param id the id of the entity
+     * @return the position of the deletion in the change sequence
+     */
+    public long delete(Long id) {
+        log.debug("Request to delete Component : {}", id);
+        componentRepository.delete(id);
+        long sequence = componentChangeRepository.nextSequence();
+        componentChangeRepository.saveTombstone(id, sequence);
+        return sequence;
+    }
+
+    /**
+     * Get a page of components, as DTOs.
+     *
+     * @param pageable the pagination information
+     * @return the page of components
+     */
+    @Transactional(readOnly = true)
+    public Page<ComponentDTO> findAll(Pageable pageable) {
+        log.debug("Request to get a page of Components");
+        return componentRepository.findAllProjectedBy(pageable);
+    }
+
+    /**
+     * Get a component, from the local cache when it is requested often, see
+     * {@link com.innvo.config.cache.TwoLevelCacheManager}.
+     * <p>
+     * The component returned may be shared with other requests: callers must not modify it.
+     *
+     * @param id the id of the component
+     * @return the component, or null if it does not exist
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CACHE_NAME, unless = "#result == null")
+    public Component findOne(Long id) {
+        log.debug("Request to get Component : {}", id);
+        return componentRepository.findOne(id);
+    }
+
+    /**
+     * Get the components with the given ids.
+     * <p>
+     * The components in the second-level cache are read with one bulk lookup, and the others with a single query.
+     *
+     * @param ids the ids of the components
+     * @return the components found, by id, in the order of the ids
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Component> findAllById(Collection<Long> ids) {
+        log.debug("Request to get the Components : {}", ids);
+        Map<Long, Component> found = componentRepository.findAllInCache(ids);
+        List<Long> misses = ids.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList());
+        if (!misses.isEmpty()) {
+            for (Component component : componentRepository.findAll(misses)) {
+                found.put(component.getId(), component);
+            }
+        }
+        Map<Long, Component> components = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Component component = found.get(id);
+            if (component != null) {
+                components.put(id, component);
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Get the changes after a position in the change sequence, in sequence order.
+     * <p>
+     * Created and updated components are returned as "UPDATED" changes with their current state, and deleted
+     * components as "DELETED" changes. Only the changes up to the high-water mark of the change sequence, read
+     * first, are returned: a change committed while they are read is left for the next call, instead of being
+     * returned ahead of a lower one that the reads missed.
+     *
+     * @param since the position in the change sequence, exclusive
+     * @param size the maximum number of changes
+     * @return the changes
+     * @throws ChangesExpiredException if tombstones after the position were purged
+     */
+    @Transactional(readOnly = true)
+    public List<ComponentChange> findChangesSince(long since, int size) {
+        log.debug("Request to get the Component changes since {}", since);
+        long until = componentChangeRepository.currentSequence();
+        List<ComponentChange> changes = new ArrayList<>(componentChangeRepository.findDeletionsBetween(since, until,
+            size));
+        for (Component component : componentRepository.findChangedBetween(since, until, new PageRequest(0, size))) {
+            changes.add(new ComponentChange(component.getChangeSequence(), ComponentChange.Type.UPDATED,
+                component.getId(), component));
+        }
+        // Read after the tombstones, so that a purge committed meanwhile is seen
+        long purgedSequence = componentChangeRepository.purgedSequence();
+        if (since > 0 && since < purgedSequence) {
+            throw new ChangesExpiredException(since, purgedSequence);
+        }
+        changes.sort(Comparator.comparingLong(ComponentChange::getSequence));
+        return changes.size() > size ? changes.subList(0, size) : changes;
+    }
+
+    /**
+     * Purge the tombstones older than the retention period.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:30 (am).
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void purgeTombstones() {
+        LocalDateTime before = LocalDateTime.now()
+            .minusDays(applicationProperties.getChanges().getTombstoneRetentionInDays());
+        int purged = componentChangeRepository.purgeTombstonesBefore(Timestamp.valueOf(before));
+        log.debug("Purged {} component tombstones", purged);
+    }
+}
@@ -0,0 +1,234 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.domain.Component;
+import com.innvo.repository.IdBlockRepository;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.AbstractEntryProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Service writing components behind, when application.write-behind.enabled is set.
+ * <p>
+ * Writes land in a Hazelcast map, with synchronous backups on other members, and are acknowledged at once; the
+ * {@link ComponentMapStore} persists them later, in batches. Until then, the component is read from the map by id,
+ * but lists, searches and the changes endpoint do not show it yet. Its change sequence is only known once it is
+ * persisted: until then, it reports the last published one, so that the changes since it still include its own.
+ * <p>
+ * The version of a component is checked and incremented on the member owning it, with an entry processor, so
+ * concurrent writes still fail with a conflict. Ids are taken from blocks of hibernate_sequence. Each write moves
+ * the last modification date of the collection forward at once, so that If-Modified-Since requests do not get a
+ * 304 (Not Modified) for a component changed behind.
+ */
+@Service
+public class ComponentWriteBehindService {
+
+    /**
+     * The name of the map holding the components written behind.
+     */
+    public static final String MAP_NAME = "componentWriteBehind";
+
+    private static final String METRIC_PENDING = "components.write-behind.pending";
+    private static final String METRIC_LAG = "components.write-behind.lag";
+
+    private static final long MISSING = -1;
+    private static final long CONFLICT = -2;
+
+    private final Logger log = LoggerFactory.getLogger(ComponentWriteBehindService.class);
+
+    private final IdBlockRepository idBlockRepository;
+
+    private final ComponentChangeService componentChangeService;
+
+    private final boolean enabled;
+
+    private final IMap<Long, Component> components;
+
+    private long nextId;
+
+    private long blockEnd;
+
+    public ComponentWriteBehindService(HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties,
+            IdBlockRepository idBlockRepository, ComponentMapStore componentMapStore,
+            ComponentChangeService componentChangeService, MetricRegistry metricRegistry) {
+        this.idBlockRepository = idBlockRepository;
+        this.componentChangeService = componentChangeService;
+        this.enabled = applicationProperties.getWriteBehind().isEnabled();
+        this.components = enabled ? hazelcastInstance.getMap(MAP_NAME) : null;
+        if (enabled) {
+            log.info("Writing components behind, with a delay of {} s",
+                applicationProperties.getWriteBehind().getWriteDelayInSeconds());
+            metricRegistry.register(METRIC_PENDING,
+                (Gauge<Long>) () -> components.getLocalMapStats().getDirtyEntryCount());
+            metricRegistry.register(METRIC_LAG, (Gauge<Long>) () ->
+                components.getLocalMapStats().getDirtyEntryCount() == 0 ? 0 :
+                    System.currentTimeMillis() - componentMapStore.getLastStoredAt());
+        }
+    }
+
+    /**
+     * Tell whether components are written behind.
+     *
+     * @return true if application.write-behind.enabled is set
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Create a component.
+     *
+     * @param name the name of the component
+     * @return the component, with its id and version
+     */
+    public Component create(String name) {
+        log.debug("Request to create Component behind : {}", name);
+        Component component = toComponent(nextId(), 0, name);
+        component.setChangeSequence(componentChangeService.getCollectionVersion());
+        // The id is new, so set it without loading it first
+        components.set(component.getId(), component);
+        componentChangeService.markModified();
+        return component;
+    }
+
+    /**
+     * Update the name of a component, if its version matches.
+     *
+     * @param id the id of the component
+     * @param version the expected version of the component, or null to update it whatever its version
+     * @param name the new name
+     * @return the updated component, or null if it does not exist
+     * @throws ConcurrencyFailureException if the component has another version
+     */
+    public Component update(Long id, Long version, String name) {
+        log.debug("Request to update Component {} behind at version {} : {}", id, version, name);
+        Object result = components.executeOnKey(id, new UpdateProcessor(name, version));
+        if (result.equals(MISSING)) {
+            return null;
+        }
+        if (result.equals(CONFLICT)) {
+            throw new ConcurrencyFailureException("Component " + id + " does not have version " + version);
+        }
+        componentChangeService.markModified();
+        return (Component) result;
+    }
+
+    /**
+     * Apply the name set by a JSON Merge Patch to a component, if its version matches.
+     *
+     * @param id the id of the component
+     * @param version the expected version of the component
+     * @param name the new name, or null if the patch does not change it
+     * @return the patched component, or null if it does not exist
+     * @throws ConcurrencyFailureException if the component has another version
+     */
+    public Component patch(Long id, long version, String name) {
+        if (name != null) {
+            return update(id, version, name);
+        }
+        Component component = findOne(id);
+        if (component != null && component.getVersion() != version) {
+            throw new ConcurrencyFailureException("Component " + id + " does not have version " + version);
+        }
+        return component;
+    }
+
+    /**
+     * Delete a component.
+     *
+     * @param id the id of the component
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete Component behind : {}", id);
+        components.delete(id);
+        componentChangeService.markModified();
+    }
+
+    /**
+     * Get a component, written behind or loaded from the database.
+     *
+     * @param id the id of the component
+     * @return the component, or null if it does not exist
+     */
+    public Component findOne(Long id) {
+        return components.get(id);
+    }
+
+    /**
+     * Get components by id, written behind or loaded from the database.
+     *
+     * @param ids the ids of the components
+     * @return the components found, by id, in the order of the ids
+     */
+    public Map<Long, Component> findAllById(Collection<Long> ids) {
+        Map<Long, Component> found = components.getAll(new HashSet<>(ids));
+        Map<Long, Component> result = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Component component = found.get(id);
+            if (component != null) {
+                result.put(id, component);
+            }
+        }
+        return result;
+    }
+
+    private synchronized Long nextId() {
+        if (nextId == blockEnd) {
+            nextId = idBlockRepository.allocate(IdBlockRepository.BLOCK_SIZE).get(0);
+            blockEnd = nextId + IdBlockRepository.BLOCK_SIZE;
+        }
+        return nextId++;
+    }
+
+    private static Component toComponent(Long id, long version, String name) {
+        Component component = new Component().name(name);
+        component.setId(id);
+        component.setVersion(version);
+        return component;
+    }
+
+    /**
+     * Updates the name of a component, and increments its version, on the member owning it and on its backups.
+     * Returns the updated component, or {@link #MISSING} or {@link #CONFLICT}.
+     */
+    private static class UpdateProcessor extends AbstractEntryProcessor<Long, Component> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        private final Long expectedVersion;
+
+        UpdateProcessor(String name, Long expectedVersion) {
+            this.name = name;
+            this.expectedVersion = expectedVersion;
+        }
+
+        @Override
+        public Object process(Map.Entry<Long, Component> entry) {
+            Component current = entry.getValue();
+            if (current == null) {
+                return MISSING;
+            }
+            if (expectedVersion != null && current.getVersion() != expectedVersion) {
+                return CONFLICT;
+            }
+            Component component = toComponent(entry.getKey(), current.getVersion() + 1, name);
+            component.setChangeSequence(current.getChangeSequence());
+            entry.setValue(component);
+            return component;
+        }
+    }
+}
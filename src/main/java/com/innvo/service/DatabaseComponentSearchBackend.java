@@ -0,0 +1,68 @@
+package com.innvo.service;
+
+import com.innvo.domain.Component;
+import com.innvo.repository.ComponentRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.jpa.vendor.Database;
+import org.springframework.stereotype.Service;
+
+/**
+ * Search backend looking up Components by name in the database.
+ * <p>
+ * On PostgreSQL, names are matched by prefix or by trigram similarity, using the pg_trgm GIN index on
+ * lower(name). Other databases, such as H2 in tests, fall back to a substring match. In both cases prefix
+ * matches are ranked first.
+ * <p>
+ * As the data is read from the component table, there is nothing to index. This backend is also used by the
+ * Elasticsearch backend when Elasticsearch is unavailable.
+ */
+@Service
+public class DatabaseComponentSearchBackend implements ComponentSearchBackend {
+
+    private final Logger log = LoggerFactory.getLogger(DatabaseComponentSearchBackend.class);
+
+    private final ComponentRepository componentRepository;
+
+    private final boolean trigramSupported;
+
+    public DatabaseComponentSearchBackend(ComponentRepository componentRepository, JpaProperties jpaProperties) {
+        this.componentRepository = componentRepository;
+        this.trigramSupported = jpaProperties.getDatabase() == Database.POSTGRESQL;
+    }
+
+    @Override
+    public Page<Component> search(String query, Pageable pageable) {
+        log.debug("Request to search the database for a page of Components for query {}", query);
+        String name = query.trim().toLowerCase();
+        String prefix = escapeLike(name) + "%";
+        // Results are ordered by rank, so the requested sort is not applied
+        Pageable page = new PageRequest(pageable.getPageNumber(), pageable.getPageSize());
+        if (trigramSupported) {
+            return componentRepository.searchByNameSimilarity(name, prefix, page);
+        }
+        return componentRepository.searchByNameContaining(prefix, "%" + prefix, page);
+    }
+
+    @Override
+    public boolean requiresIndexing() {
+        return false;
+    }
+
+    @Override
+    public void index(Component component) {
+    }
+
+    @Override
+    public void delete(Long id) {
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
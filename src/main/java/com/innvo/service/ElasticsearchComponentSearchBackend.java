@@ -0,0 +1,123 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.config.ElasticsearchConfiguration.CustomElasticsearchTemplate;
+import com.innvo.domain.Component;
+import com.innvo.web.rest.errors.CustomParameterizedException;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.netflix.hystrix.HystrixCircuitBreaker;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
+import org.elasticsearch.common.unit.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Search backend for Components using Elasticsearch, the default backend.
+ * <p>
+ * Elasticsearch calls run in the "componentSearch" Hystrix command, isolated in their own bounded thread pool,
+ * with a timeout and a circuit breaker (see the "hystrix" section of application.yml). When a call fails, times
+ * out, or the circuit is open, the search falls back to the {@link DatabaseComponentSearchBackend}.
+ * <p>
+ * Queries are checked by the {@link SearchQueryGuard} and run with a timeout and a limit on the number of
+ * documents collected per shard. Rejected queries do not trigger the fallback.
+ * <p>
+ * Saved and deleted components are written to the index through the {@link BulkIndexService}.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "application.search", name = "backend", havingValue = "elasticsearch", matchIfMissing = true)
+public class ElasticsearchComponentSearchBackend implements ComponentSearchBackend {
+
+    public static final String COMMAND_KEY = "componentSearch";
+
+    private static final String METRIC_CIRCUIT_OPEN = "elasticsearch.search.circuit-open";
+    private static final String METRIC_FALLBACK = "elasticsearch.search.fallback";
+
+    private final Logger log = LoggerFactory.getLogger(ElasticsearchComponentSearchBackend.class);
+
+    private final CustomElasticsearchTemplate elasticsearchTemplate;
+
+    private final SearchQueryGuard searchQueryGuard;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final DatabaseComponentSearchBackend databaseComponentSearchBackend;
+
+    private final BulkIndexService bulkIndexService;
+
+    private final MetricRegistry metricRegistry;
+
+    private Meter fallbacks;
+
+    public ElasticsearchComponentSearchBackend(CustomElasticsearchTemplate elasticsearchTemplate,
+            SearchQueryGuard searchQueryGuard, ApplicationProperties applicationProperties,
+            DatabaseComponentSearchBackend databaseComponentSearchBackend, BulkIndexService bulkIndexService,
+            MetricRegistry metricRegistry) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.searchQueryGuard = searchQueryGuard;
+        this.applicationProperties = applicationProperties;
+        this.databaseComponentSearchBackend = databaseComponentSearchBackend;
+        this.bulkIndexService = bulkIndexService;
+        this.metricRegistry = metricRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        fallbacks = metricRegistry.meter(METRIC_FALLBACK);
+        metricRegistry.register(METRIC_CIRCUIT_OPEN, (Gauge<Boolean>) () -> {
+            HystrixCircuitBreaker circuitBreaker =
+                HystrixCircuitBreaker.Factory.getInstance(HystrixCommandKey.Factory.asKey(COMMAND_KEY));
+            return circuitBreaker != null && circuitBreaker.isOpen();
+        });
+    }
+
+    @Override
+    @HystrixCommand(commandKey = COMMAND_KEY, threadPoolKey = COMMAND_KEY, fallbackMethod = "searchDatabase",
+        ignoreExceptions = CustomParameterizedException.class)
+    public Page<Component> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of Components for query {}", query);
+        ApplicationProperties.Search search = applicationProperties.getSearch();
+        return elasticsearchTemplate.search(searchQueryGuard.analyze(query), pageable, Component.class,
+            TimeValue.timeValueMillis(search.getTimeoutInMs()), search.getTerminateAfter());
+    }
+
+    /**
+     * Fallback of {@link #search(String, Pageable)}: search the components in the database.
+     *
+     * @param query the query string
+     * @param pageable the pagination information
+     * @param e the failure of the Elasticsearch search
+     * @return the page of components
+     */
+    public Page<Component> searchDatabase(String query, Pageable pageable, Throwable e) {
+        log.warn("Elasticsearch search failed, searching the database for query {}: {}", query, String.valueOf(e));
+        fallbacks.mark();
+        return databaseComponentSearchBackend.search(query, pageable);
+    }
+
+    @Override
+    public boolean requiresIndexing() {
+        return true;
+    }
+
+    @Override
+    public void index(Component component) {
+        bulkIndexService.index(component);
+    }
+
+    @Override
+    public void delete(Long id) {
+        bulkIndexService.delete(Component.class, id);
+    }
+}
@@ -0,0 +1,125 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.config.cache.HeavyHitters;
+import com.innvo.config.cache.TwoLevelCacheManager;
+import com.innvo.repository.HotKeyRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service finding the most requested component ids and search queries, in constant memory, see
+ * {@link HeavyHitters}.
+ * <p>
+ * Every half-life, the counts are halved, so that the estimates follow the recent load, and the hot keys are saved
+ * in the hot key list, which the cache warm-up of the next instances reads. The hot components are also pinned in
+ * the local cache of the components read by id, see {@link ComponentService#findOne(Long)}. Each instance saves its
+ * own hot keys in place of the previous ones, whichever instance saved them.
+ */
+@Service
+public class HotKeyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Logger log = LoggerFactory.getLogger(HotKeyService.class);
+
+    private final HotKeyRepository hotKeyRepository;
+
+    private final CacheManager cacheManager;
+
+    private final HeavyHitters<Long> components;
+
+    private final HeavyHitters<String> queries;
+
+    public HotKeyService(HotKeyRepository hotKeyRepository, CacheManager cacheManager,
+            ApplicationProperties applicationProperties) {
+        this.hotKeyRepository = hotKeyRepository;
+        this.cacheManager = cacheManager;
+        ApplicationProperties.HotKeys properties = applicationProperties.getHotKeys();
+        this.components = new HeavyHitters<>(properties.getExpectedKeys(), properties.getSize());
+        this.queries = new HeavyHitters<>(properties.getExpectedKeys(), properties.getSize());
+    }
+
+    /**
+     * Count a request of a component.
+     *
+     * @param id the id of the component
+     */
+    public void recordComponent(Long id) {
+        components.record(id);
+    }
+
+    /**
+     * Count a search.
+     *
+     * @param query the query of the search
+     */
+    public void recordQuery(String query) {
+        queries.record(query);
+    }
+
+    /**
+     * Get the most requested components.
+     *
+     * @return the ids, with their estimated recent number of requests, most requested first
+     */
+    public List<HeavyHitters.Estimate<Long>> getHotComponents() {
+        return components.getTop();
+    }
+
+    /**
+     * Get the most frequent search queries.
+     *
+     * @return the queries, with their estimated recent number of searches, most frequent first
+     */
+    public List<HeavyHitters.Estimate<String>> getHotQueries() {
+        return queries.getTop();
+    }
+
+    /**
+     * Save the hot keys and pin the hot components, then halve the counts.
+     */
+    @Scheduled(fixedDelayString = "${application.hot-keys.half-life-in-ms:300000}",
+        initialDelayString = "${application.hot-keys.half-life-in-ms:300000}")
+    @Transactional
+    public void refresh() {
+        List<HeavyHitters.Estimate<Long>> hotComponents = components.getTop();
+        List<HeavyHitters.Estimate<String>> hotQueries = queries.getTop();
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            Set<Object> pinnedKeys = new HashSet<>();
+            hotComponents.forEach(estimate -> pinnedKeys.add(estimate.getKey()));
+            ((TwoLevelCacheManager) cacheManager).setPinnedKeys(pinnedKeys);
+        }
+        if (!hotComponents.isEmpty()) {
+            hotKeyRepository.replace(HotKeyRepository.COMPONENT, toScores(hotComponents));
+        }
+        if (!hotQueries.isEmpty()) {
+            hotKeyRepository.replace(HotKeyRepository.QUERY, toScores(hotQueries));
+        }
+        components.decay();
+        queries.decay();
+        log.debug("Saved {} hot components and {} hot queries", hotComponents.size(), hotQueries.size());
+    }
+
+    private static Map<String, Double> toScores(List<? extends HeavyHitters.Estimate<?>> estimates) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (HeavyHitters.Estimate<?> estimate : estimates) {
+            String key = estimate.getKey().toString();
+            if (key.length() <= MAX_KEY_LENGTH) {
+                scores.put(key, (double) estimate.getFrequency());
+            }
+        }
+        return scores;
+    }
+}
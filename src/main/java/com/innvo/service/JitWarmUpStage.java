@@ -0,0 +1,136 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.domain.Component;
+import com.innvo.repository.ComponentRepository;
+import com.innvo.security.AuthoritiesConstants;
+import com.innvo.security.jwt.JWTConfigurer;
+import com.innvo.security.jwt.JWTFilter;
+import com.innvo.security.jwt.TokenProvider;
+import com.innvo.service.dto.ComponentDTO;
+import com.innvo.web.rest.util.PaginationUtil;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Warm-up stage running the hot paths of the requests in-process, until they are compiled: the JWT filter, the read
+ * of a page of components and of single components, their serialization with Jackson and the pagination headers.
+ * <p>
+ * The calls are synthetic: they do not go through HTTP, nor are they audited or counted in the REST metrics. A
+ * synthetic page is serialized as well, so that the serialization is warmed up on an empty database too.
+ */
+@Service
+@Order(2)
+public class JitWarmUpStage implements WarmUpStage {
+
+    private final Logger log = LoggerFactory.getLogger(JitWarmUpStage.class);
+
+    private final TokenProvider tokenProvider;
+
+    private final ComponentService componentService;
+
+    private final ComponentRepository componentRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties.WarmUp.Jit properties;
+
+    public JitWarmUpStage(TokenProvider tokenProvider, ComponentService componentService,
+            ComponentRepository componentRepository, ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties) {
+        this.tokenProvider = tokenProvider;
+        this.componentService = componentService;
+        this.componentRepository = componentRepository;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getWarmUp().getJit();
+    }
+
+    @Override
+    public String getName() {
+        return "jit";
+    }
+
+    @Override
+    public long getTimeoutInMs() {
+        return properties.getTimeBudgetInSeconds() * 1000L;
+    }
+
+    @Override
+    public void run(long deadline) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("warm-up", null,
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))), false);
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) ->
+                "getHeader".equals(method.getName()) && JWTConfigurer.AUTHORIZATION_HEADER.equals(args[0]) ?
+                    "Bearer " + token : null);
+        JWTFilter jwtFilter = new JWTFilter(tokenProvider);
+        Page<Component> syntheticPage = syntheticPage();
+        int iterations = 0;
+        try {
+            while (iterations < properties.getIterations() && System.currentTimeMillis() < deadline) {
+                filter(jwtFilter, request);
+                Page<ComponentDTO> page = componentService.findAll(new PageRequest(
+                    iterations % 10, properties.getPageSize()));
+                objectMapper.writeValueAsBytes(page.getContent());
+                PaginationUtil.generatePaginationHttpHeaders(page, "/api/components");
+                if (page.hasContent()) {
+                    Component component = componentRepository.findOne(
+                        page.getContent().get(iterations % page.getNumberOfElements()).getId());
+                    objectMapper.writeValueAsBytes(component);
+                }
+                objectMapper.writeValueAsBytes(syntheticPage.getContent());
+                PaginationUtil.generatePaginationHttpHeaders(syntheticPage, "/api/components");
+                iterations++;
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        log.info("Ran the request hot paths {} times", iterations);
+    }
+
+    private static void filter(JWTFilter jwtFilter, HttpServletRequest request) {
+        try {
+            jwtFilter.doFilter(request, null, (servletRequest, servletResponse) -> { });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ServletException e) {
+            throw new IllegalStateException(e);
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    private Page<Component> syntheticPage() {
+        List<Component> components = new ArrayList<>(properties.getPageSize());
+        for (int i = 0; i < properties.getPageSize(); i++) {
+            Component component = new Component().name("warm-up " + i);
+            component.setId((long) i);
+            components.add(component);
+        }
+        return new PageImpl<>(components, new PageRequest(1, properties.getPageSize()), 10L * properties.getPageSize());
+    }
+}
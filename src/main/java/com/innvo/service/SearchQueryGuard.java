@@ -0,0 +1,172 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.web.rest.errors.CustomParameterizedException;
+import com.innvo.web.rest.errors.ErrorConstants;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.RegexpQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+
+/**
+ * Analyzes the query strings sent to Elasticsearch, before they reach the cluster.
+ * <p>
+ * The query is parsed with the Lucene classic query parser, which has the same syntax as the
+ * Elasticsearch "query_string" query, and:
+ * <ul>
+ * <li>leading wildcards, regular expressions and queries with too many clauses are rejected,</li>
+ * <li>fuzzy terms allowing more than one edit are rewritten to allow a single edit,</li>
+ * <li>queries made only of exact field:value terms are run in filter context, as they do not need scoring
+ * and can then be served from the node query cache.</li>
+ * </ul>
+ */
+@Component
+public class SearchQueryGuard {
+
+    private static final String METRIC_REWRITTEN = "elasticsearch.search.query.rewritten";
+    private static final String METRIC_REJECTED = "elasticsearch.search.query.rejected";
+
+    private static final String DEFAULT_FIELD = "_all";
+
+    private static final int MAX_EDITS = 1;
+
+    private static final int MAX_DETERMINIZED_STATES = 1000;
+
+    /** Explicit fuzziness after a term, phrase slops (after a quote) are left alone */
+    private static final Pattern FUZZINESS = Pattern.compile("(?<=[^\\s\"])~(\\d+(?:\\.\\d+)?)");
+
+    private final Logger log = LoggerFactory.getLogger(SearchQueryGuard.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Counter rewritten;
+
+    private final Counter rejected;
+
+    public SearchQueryGuard(ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.applicationProperties = applicationProperties;
+        this.rewritten = metricRegistry.counter(METRIC_REWRITTEN);
+        this.rejected = metricRegistry.counter(METRIC_REJECTED);
+    }
+
+    /**
+     * Check a query string and build the corresponding Elasticsearch query.
+     *
+     * @param query the query string
+     * @return the Elasticsearch query
+     * @throws CustomParameterizedException if the query is invalid or too costly
+     */
+    public QueryBuilder analyze(String query) {
+        Query parsed;
+        try {
+            QueryParser parser = new QueryParser(DEFAULT_FIELD, new KeywordAnalyzer());
+            parser.setAllowLeadingWildcard(true);
+            parsed = parser.parse(query);
+        } catch (ParseException | BooleanQuery.TooManyClauses e) {
+            throw reject(query, "invalid");
+        }
+        QueryStats stats = new QueryStats();
+        inspect(parsed, stats);
+        if (stats.leadingWildcard) {
+            throw reject(query, "leadingWildcard");
+        }
+        if (stats.regexp) {
+            throw reject(query, "regexp");
+        }
+        if (stats.clauses > applicationProperties.getSearch().getMaxClauses()) {
+            throw reject(query, "tooManyClauses");
+        }
+        // A fuzzy term without an explicit distance, such as "foo~", is already limited by the default fuzziness
+        String rewrittenQuery = stats.deepFuzziness ? limitFuzziness(query) : query;
+        if (!rewrittenQuery.equals(query)) {
+            rewritten.inc();
+            log.debug("Rewrote search query {} to {}", query, rewrittenQuery);
+        }
+        QueryStringQueryBuilder queryStringQuery = queryStringQuery(rewrittenQuery)
+            .allowLeadingWildcard(false)
+            .maxDeterminizedStates(MAX_DETERMINIZED_STATES)
+            .fuzziness(Fuzziness.ONE);
+        if (stats.exactTermsOnly) {
+            return boolQuery().filter(queryStringQuery);
+        }
+        return queryStringQuery;
+    }
+
+    private CustomParameterizedException reject(String query, String reason) {
+        rejected.inc();
+        log.debug("Rejected search query {}: {}", query, reason);
+        return new CustomParameterizedException(ErrorConstants.ERR_SEARCH_QUERY_REJECTED, reason);
+    }
+
+    private void inspect(Query query, QueryStats stats) {
+        if (query instanceof BooleanQuery) {
+            for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                inspect(clause.getQuery(), stats);
+            }
+        } else if (query instanceof BoostQuery) {
+            inspect(((BoostQuery) query).getQuery(), stats);
+        } else if (query instanceof TermQuery) {
+            stats.clauses++;
+            if (DEFAULT_FIELD.equals(((TermQuery) query).getTerm().field())) {
+                stats.exactTermsOnly = false;
+            }
+        } else {
+            stats.clauses++;
+            stats.exactTermsOnly = false;
+            if (query instanceof WildcardQuery) {
+                String text = ((WildcardQuery) query).getTerm().text();
+                stats.leadingWildcard |= text.startsWith("*") || text.startsWith("?");
+            } else if (query instanceof RegexpQuery) {
+                stats.regexp = true;
+            } else if (query instanceof FuzzyQuery) {
+                stats.deepFuzziness |= ((FuzzyQuery) query).getMaxEdits() > MAX_EDITS;
+            }
+        }
+    }
+
+    private static String limitFuzziness(String query) {
+        Matcher matcher = FUZZINESS.matcher(query);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String edits = Float.parseFloat(matcher.group(1)) > MAX_EDITS ? String.valueOf(MAX_EDITS) : matcher.group(1);
+            matcher.appendReplacement(result, "~" + edits);
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static class QueryStats {
+
+        private int clauses;
+
+        private boolean exactTermsOnly = true;
+
+        private boolean leadingWildcard;
+
+        private boolean regexp;
+
+        private boolean deepFuzziness;
+    }
+}
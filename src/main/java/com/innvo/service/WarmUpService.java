@@ -0,0 +1,142 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service running the warm-up stages once the application is started, in their order, on the task executor.
+ * <p>
+ * Until they are all done, or their time is out, the "warmUp" health indicator reports OUT_OF_SERVICE, which the
+ * Eureka health check forwards to the registry: the instance only gets traffic once it is warm.
+ * <p>
+ * Each stage runs in a thread of its own, and is interrupted and left behind once its time is out, so that a blocked
+ * stage does not keep the instance out of service.
+ */
+@Service
+public class WarmUpService {
+
+    /**
+     * The state of a stage.
+     */
+    public enum State {
+        PENDING, RUNNING, DONE, TIMED_OUT, FAILED
+    }
+
+    private final Logger log = LoggerFactory.getLogger(WarmUpService.class);
+
+    private final List<WarmUpStage> stages;
+
+    private final Executor taskExecutor;
+
+    private final boolean enabled;
+
+    private final MetricRegistry metricRegistry;
+
+    private final Map<String, State> states = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private volatile boolean complete;
+
+    public WarmUpService(List<WarmUpStage> stages, @Qualifier("taskExecutor") Executor taskExecutor,
+            ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.stages = stages;
+        this.taskExecutor = taskExecutor;
+        this.enabled = applicationProperties.getWarmUp().isEnabled();
+        this.metricRegistry = metricRegistry;
+        for (WarmUpStage stage : stages) {
+            states.put(stage.getName(), State.PENDING);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            complete = true;
+            return;
+        }
+        taskExecutor.execute(this::warmUp);
+    }
+
+    /**
+     * Run the warm-up stages, in their order, each one within its time.
+     */
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        ExecutorService stageExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "adapcomponent-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (WarmUpStage stage : stages) {
+                states.put(stage.getName(), runStage(stage, stageExecutor));
+            }
+        } finally {
+            stageExecutor.shutdownNow();
+        }
+        complete = true;
+        log.info("Warmed up in {} ms: {}", System.currentTimeMillis() - start, states);
+    }
+
+    private State runStage(WarmUpStage stage, ExecutorService stageExecutor) {
+        long deadline = System.currentTimeMillis() + stage.getTimeoutInMs();
+        log.info("Warming up: {}, for at most {} ms", stage.getName(), stage.getTimeoutInMs());
+        states.put(stage.getName(), State.RUNNING);
+        try (Timer.Context ignored = metricRegistry.timer(MetricRegistry.name("warm-up", stage.getName())).time()) {
+            Future<?> future = stageExecutor.submit(() -> stage.run(deadline));
+            try {
+                future.get(stage.getTimeoutInMs(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Warm-up stage {} is not done after {} ms, leaving it", stage.getName(),
+                    stage.getTimeoutInMs());
+                future.cancel(true);
+                return State.TIMED_OUT;
+            } catch (ExecutionException e) {
+                log.warn("Warm-up stage {} failed: {}", stage.getName(), e.getCause().toString());
+                return State.FAILED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                return State.FAILED;
+            }
+            return System.currentTimeMillis() > deadline ? State.TIMED_OUT : State.DONE;
+        }
+    }
+
+    /**
+     * Tell whether all the stages are over, or the warm-up is disabled.
+     *
+     * @return true if the instance can take traffic
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the state of each stage, in their order
+     */
+    public Map<String, State> getStates() {
+        synchronized (states) {
+            return new LinkedHashMap<>(states);
+        }
+    }
+}
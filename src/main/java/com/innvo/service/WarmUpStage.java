@@ -0,0 +1,25 @@
+package com.innvo.service;
+
+/**
+ * A stage of the warm-up of a starting instance, see {@link WarmUpService}.
+ */
+public interface WarmUpStage {
+
+    /**
+     * @return the name of the stage, used in its metrics and health details
+     */
+    String getName();
+
+    /**
+     * @return the time the stage is given, in milliseconds
+     */
+    long getTimeoutInMs();
+
+    /**
+     * Run the stage; it should return once the deadline is passed, the instance reporting UP anyway. A stage still
+     * running then is interrupted, and no longer waited for.
+     *
+     * @param deadline the time by which the stage should be done, in milliseconds since the epoch
+     */
+    void run(long deadline);
+}
@@ -0,0 +1,95 @@
+package com.innvo.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the Component entity, read with a constructor projection.
+ * <p>
+ * It is serialized like the entity, but is not managed: reading it allocates no persistence context entry
+ * and no snapshot for dirty checking.
+ */
+public class ComponentDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private long changeSequence;
+
+    private long version;
+
+    public ComponentDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ComponentDTO(Long id, String name, long changeSequence, long version) {
+        this.id = id;
+        this.name = name;
+        this.changeSequence = changeSequence;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getChangeSequence() {
+        return changeSequence;
+    }
+
+    public void setChangeSequence(long changeSequence) {
+        this.changeSequence = changeSequence;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ComponentDTO componentDTO = (ComponentDTO) o;
+        if (componentDTO.id == null || id == null) {
+            return false;
+        }
+        return Objects.equals(id, componentDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentDTO{" +
+            "id=" + id +
+            ", name='" + name + "'" +
+            ", version=" + version +
+            '}';
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Data Transfer Objects.
+ */
+package com.innvo.service.dto;
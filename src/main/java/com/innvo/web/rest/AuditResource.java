@@ -0,0 +1,119 @@
+package com.innvo.web.rest;
+
+import com.innvo.repository.AuditEventStreamRepository;
+
+import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * REST controller for reading the audit events by date range.
+ */
+@RestController
+@RequestMapping("/management")
+public class AuditResource {
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(AuditResource.class);
+
+    private final AuditEventStreamRepository auditEventStreamRepository;
+
+    private final ObjectMapper objectMapper;
+
+    public AuditResource(AuditEventStreamRepository auditEventStreamRepository, ObjectMapper objectMapper) {
+        this.auditEventStreamRepository = auditEventStreamRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * GET  /audits : get a page of the audit events between two dates.
+     * <p>
+     * Pages are selected by keyset: the "next" link of the Link header holds the date and id of the last event of
+     * the page, and is only sent when the page is full.
+     *
+     * @param fromDate the start of the date range, inclusive
+     * @param toDate the end of the date range, inclusive
+     * @param afterDate the date of the last event of the previous page
+     * @param afterId the id of the last event of the previous page
+     * @param size the maximum number of events
+     * @return the ResponseEntity with status 200 (OK) and the list of audit events in body
+     */
+    @GetMapping("/audits")
+    @Timed
+    public ResponseEntity<List<AuditEvent>> getAuditEvents(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "20") int size) {
+        log.debug("REST request to get a page of audit events from {} to {}", fromDate, toDate);
+        AuditEventStreamRepository.Key after = afterDate != null && afterId != null ?
+            new AuditEventStreamRepository.Key(afterDate, afterId) : null;
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<AuditEventStreamRepository.Entry> page = auditEventStreamRepository.findPage(fromDate.atStartOfDay(),
+            toDate.plusDays(1).atStartOfDay(), after, pageSize);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.size() == pageSize) {
+            AuditEventStreamRepository.Key last = page.get(page.size() - 1).getKey();
+            String next = UriComponentsBuilder.fromUriString("/management/audits")
+                .queryParam("fromDate", fromDate)
+                .queryParam("toDate", toDate)
+                .queryParam("afterDate", last.getDate())
+                .queryParam("afterId", last.getId())
+                .queryParam("size", pageSize)
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers)
+            .body(page.stream().map(AuditEventStreamRepository.Entry::getEvent).collect(Collectors.toList()));
+    }
+
+    /**
+     * GET  /audits/export : export the audit events between two dates, as newline-delimited JSON.
+     * <p>
+     * The events are written while they are read from the database, so the export is not held in memory.
+     *
+     * @param fromDate the start of the date range, inclusive
+     * @param toDate the end of the date range, inclusive
+     * @return the ResponseEntity with status 200 (OK) and the audit events in body, one per line
+     */
+    @GetMapping("/audits/export")
+    @Timed
+    public ResponseEntity<StreamingResponseBody> exportAuditEvents(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        log.debug("REST request to export the audit events from {} to {}", fromDate, toDate);
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+                auditEventStreamRepository.stream(fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay(), entry -> {
+                    try {
+                        writer.write(entry.getEvent());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+}
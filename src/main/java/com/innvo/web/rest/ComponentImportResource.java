@@ -0,0 +1,100 @@
+package com.innvo.web.rest;
+
+import com.innvo.service.ComponentImportService;
+import com.innvo.web.rest.vm.ImportProgressVM;
+
+import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * REST controller for importing components from a stream, on any database.
+ */
+@RestController
+@RequestMapping("/api")
+public class ComponentImportResource {
+
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final Logger log = LoggerFactory.getLogger(ComponentImportResource.class);
+
+    private final ComponentImportService componentImportService;
+
+    private final ObjectMapper objectMapper;
+
+    public ComponentImportResource(ComponentImportService componentImportService, ObjectMapper objectMapper) {
+        this.componentImportService = componentImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * POST  /components/_import : import components, as newline-delimited JSON objects or as a JSON array,
+     * optionally gzip-encoded.
+     * <p>
+     * The body is read while the components are written, one batch at a time, so a slow database slows down the
+     * upload. The progress is sent as newline-delimited JSON: a line after each batch, then a last line with the
+     * totals, which holds an error if the body could not be read to its end.
+     *
+     * @param request the request, whose body holds the components
+     * @return the ResponseEntity with status 200 (OK) and the progress of the import in body
+     */
+    @PostMapping(value = "/components/_import", consumes = {APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+        produces = APPLICATION_NDJSON_VALUE)
+    @Timed
+    public ResponseEntity<StreamingResponseBody> importComponents(HttpServletRequest request) {
+        log.debug("REST request to import Components");
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writer();
+            long start = System.currentTimeMillis();
+            long[] progress = new long[2];
+            try (InputStream in = gzip ? new GZIPInputStream(request.getInputStream()) : request.getInputStream();
+                 JsonParser parser = objectMapper.getFactory().createParser(in)) {
+                ComponentImportService.Progress result = componentImportService.importComponents(parser, batch -> {
+                    progress[0] = batch.getRows();
+                    progress[1] = batch.getInserted();
+                    writeLine(writer, outputStream, toProgressVM(batch.getRows(), batch.getInserted(),
+                        batch.getElapsedInMs()));
+                });
+                writeLine(writer, outputStream, toProgressVM(result.getRows(), result.getInserted(),
+                    result.getElapsedInMs()));
+            } catch (JsonProcessingException e) {
+                log.debug("Import stopped on malformed JSON: {}", e.getOriginalMessage());
+                ImportProgressVM last = toProgressVM(progress[0], progress[1], System.currentTimeMillis() - start);
+                last.setError(e.getOriginalMessage());
+                writeLine(writer, outputStream, last);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.valueOf(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    private static ImportProgressVM toProgressVM(long rows, long inserted, long elapsedInMs) {
+        return new ImportProgressVM(rows, inserted, rows - inserted, elapsedInMs);
+    }
+
+    private static void writeLine(ObjectWriter writer, OutputStream outputStream, ImportProgressVM progress) {
+        try {
+            outputStream.write(writer.writeValueAsBytes(progress));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.innvo.web.rest;
+
+import com.innvo.service.ComponentLoadService;
+import com.innvo.web.rest.errors.CustomParameterizedException;
+import com.innvo.web.rest.errors.ErrorConstants;
+import com.innvo.web.rest.vm.ImportProgressVM;
+
+import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * REST controller for loading large numbers of components, on PostgreSQL.
+ */
+@RestController
+@RequestMapping("/management")
+public class ComponentLoadResource {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final Logger log = LoggerFactory.getLogger(ComponentLoadResource.class);
+
+    private final ComponentLoadService componentLoadService;
+
+    private final ObjectMapper objectMapper;
+
+    public ComponentLoadResource(ComponentLoadService componentLoadService, ObjectMapper objectMapper) {
+        this.componentLoadService = componentLoadService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * POST  /components/load : load components, as CSV with a "name" header, or as newline-delimited JSON objects
+     * with a "name" field.
+     * <p>
+     * The progress is sent while the components are loaded, as newline-delimited JSON: a line every 100000 rows
+     * read, then a last line with the number of inserted and rejected components.
+     *
+     * @param request the request, whose body holds the components
+     * @return the ResponseEntity with status 200 (OK) and the progress of the load in body, or with status 400
+     * (Bad Request) if the database does not support bulk loads
+     */
+    @PostMapping(value = "/components/load", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE},
+        produces = APPLICATION_NDJSON_VALUE)
+    @Timed
+    public ResponseEntity<StreamingResponseBody> loadComponents(HttpServletRequest request) {
+        log.debug("REST request to load Components");
+        if (!componentLoadService.isSupported()) {
+            throw new CustomParameterizedException(ErrorConstants.ERR_LOAD_UNSUPPORTED);
+        }
+        boolean ndjson = MediaType.valueOf(request.getContentType()).isCompatibleWith(
+            MediaType.valueOf(APPLICATION_NDJSON_VALUE));
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = objectMapper.writer();
+            long start = System.currentTimeMillis();
+            Reader csv = ndjson ? new NdjsonCsvReader(objectMapper, request) :
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8);
+            ComponentLoadService.Result result = componentLoadService.load(csv, lines ->
+                writeLine(writer, outputStream, new ImportProgressVM(lines, null, null,
+                    System.currentTimeMillis() - start)));
+            writeLine(writer, outputStream, new ImportProgressVM(result.getRows(), result.getInserted(),
+                result.getRows() - result.getInserted(), result.getElapsedInMs()));
+        };
+        return ResponseEntity.ok().contentType(MediaType.valueOf(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    private static void writeLine(ObjectWriter writer, OutputStream outputStream, ImportProgressVM progress) {
+        try {
+            outputStream.write(writer.writeValueAsBytes(progress));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Converts newline-delimited JSON objects to CSV, one object at a time.
+     */
+    private static class NdjsonCsvReader extends Reader {
+
+        private final MappingIterator<JsonNode> nodes;
+
+        private final StringBuilder buffer = new StringBuilder("name\n");
+
+        private int position;
+
+        NdjsonCsvReader(ObjectMapper objectMapper, HttpServletRequest request) throws IOException {
+            JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream());
+            this.nodes = objectMapper.readerFor(JsonNode.class).readValues(parser);
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) throws IOException {
+            if (position == buffer.length()) {
+                buffer.setLength(0);
+                position = 0;
+                if (!nodes.hasNextValue()) {
+                    return -1;
+                }
+                String name = nodes.nextValue().path("name").textValue();
+                if (name != null) {
+                    // Unquoted empty values are nulls
+                    buffer.append('"').append(name.replace("\"", "\"\"")).append('"');
+                }
+                buffer.append('\n');
+            }
+            int read = Math.min(length, buffer.length() - position);
+            buffer.getChars(position, position + read, chars, offset);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            nodes.close();
+        }
+    }
+}
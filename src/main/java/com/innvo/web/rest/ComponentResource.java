@@ -2,32 +2,43 @@ package com.innvo.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
 import com.innvo.domain.Component;
+import com.innvo.domain.ComponentChange;
 
-import com.innvo.repository.ComponentRepository;
-import com.innvo.repository.search.ComponentSearchRepository;
+import com.innvo.service.ComponentChangeService;
+import com.innvo.service.ComponentSearchBackend;
+import com.innvo.service.ComponentService;
+import com.innvo.service.ComponentWriteBehindService;
+import com.innvo.service.HotKeyService;
+import com.innvo.service.dto.ComponentDTO;
+import com.innvo.web.rest.util.ETagUtil;
 import com.innvo.web.rest.util.HeaderUtil;
 import com.innvo.web.rest.util.PaginationUtil;
+import com.innvo.web.rest.vm.ComponentsByIdVM;
 import io.swagger.annotations.ApiParam;
-import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.index.query.QueryBuilders.*;
-
 /**
  * REST controller for managing Component.
  */
@@ -38,14 +49,31 @@ public class ComponentResource {
     private final Logger log = LoggerFactory.getLogger(ComponentResource.class);
 
     private static final String ENTITY_NAME = "component";
+
+    private static final int MAX_CHANGES_SIZE = 1000;
+
+    private static final int MAX_IDS = 1000;
+
+    private static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
         
-    private final ComponentRepository componentRepository;
+    private final ComponentService componentService;
+
+    private final ComponentSearchBackend componentSearchBackend;
+
+    private final ComponentChangeService componentChangeService;
+
+    private final ComponentWriteBehindService componentWriteBehindService;
 
-    private final ComponentSearchRepository componentSearchRepository;
+    private final HotKeyService hotKeyService;
 
-    public ComponentResource(ComponentRepository componentRepository, ComponentSearchRepository componentSearchRepository) {
-        this.componentRepository = componentRepository;
-        this.componentSearchRepository = componentSearchRepository;
+    public ComponentResource(ComponentService componentService, ComponentSearchBackend componentSearchBackend,
+            ComponentChangeService componentChangeService, ComponentWriteBehindService componentWriteBehindService,
+            HotKeyService hotKeyService) {
+        this.componentService = componentService;
+        this.componentSearchBackend = componentSearchBackend;
+        this.componentChangeService = componentChangeService;
+        this.componentWriteBehindService = componentWriteBehindService;
+        this.hotKeyService = hotKeyService;
     }
 
     /**
@@ -62,19 +90,32 @@ public class ComponentResource {
         if (component.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "idexists", "A new component cannot already have an ID")).body(null);
         }
-        Component result = componentRepository.save(component);
-        componentSearchRepository.save(result);
+        Component result;
+        if (componentWriteBehindService.isEnabled()) {
+            // Indexed and published once persisted
+            result = componentWriteBehindService.create(component.getName());
+        } else {
+            result = componentService.save(component);
+            componentSearchBackend.index(result);
+            componentChangeService.publish(
+                new ComponentChange(result.getChangeSequence(), ComponentChange.Type.CREATED, result.getId(), result));
+        }
         return ResponseEntity.created(new URI("/api/components/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
+            .eTag(ETagUtil.fromVersion(result.getVersion()))
             .body(result);
     }
 
     /**
      * PUT  /components : Updates an existing component.
+     * <p>
+     * The component is updated only if it still has the version in the body; without a version, the last write
+     * wins.
      *
      * @param component the component to update
      * @return the ResponseEntity with status 200 (OK) and with body the updated component,
      * or with status 400 (Bad Request) if the component is not valid,
+     * or with status 409 (Conflict) if the component has another version,
      * or with status 500 (Internal Server Error) if the component couldnt be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -85,40 +126,173 @@ public class ComponentResource {
         if (component.getId() == null) {
             return createComponent(component);
         }
-        Component result = componentRepository.save(component);
-        componentSearchRepository.save(result);
+        Component result;
+        if (componentWriteBehindService.isEnabled()) {
+            result = componentWriteBehindService.update(component.getId(),
+                component.hasVersion() ? component.getVersion() : null, component.getName());
+            if (result == null) {
+                return ResponseEntity.notFound().build();
+            }
+        } else {
+            result = componentService.save(component);
+            componentSearchBackend.index(result);
+            componentChangeService.publish(
+                new ComponentChange(result.getChangeSequence(), ComponentChange.Type.UPDATED, result.getId(), result));
+        }
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, component.getId().toString()))
+            .eTag(ETagUtil.fromVersion(result.getVersion()))
+            .body(result);
+    }
+
+    /**
+     * PATCH  /components/:id : Updates an existing component with a JSON Merge Patch.
+     * <p>
+     * The If-Match header must hold the ETag of the version being patched; the component is updated with a single
+     * statement, only if it still has this version. A patch changing nothing, such as {}, returns the component as
+     * it is.
+     *
+     * @param id the id of the component to patch
+     * @param ifMatch the ETag of the version being patched
+     * @param patch the JSON Merge Patch, see <a href="https://tools.ietf.org/html/rfc7396">RFC 7396</a>
+     * @return the ResponseEntity with status 200 (OK) and with body the patched component,
+     * or with status 400 (Bad Request) if the patch is not valid,
+     * or with status 404 (Not Found) if the component does not exist,
+     * or with status 409 (Conflict) if the component has another version,
+     * or with status 412 (Precondition Failed) if the If-Match header is not the ETag of a version,
+     * or with status 428 (Precondition Required) if the If-Match header is missing
+     */
+    @PatchMapping(value = "/components/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Timed
+    public ResponseEntity<Component> patchComponent(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, Object> patch) {
+        log.debug("REST request to patch Component {} : {}", id, patch);
+        if (ifMatch == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        Long version = ETagUtil.toVersion(ifMatch);
+        if (version == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        Component result;
+        if (componentWriteBehindService.isEnabled()) {
+            result = componentWriteBehindService.patch(id, version, componentService.getPatchedName(patch));
+            if (result == null) {
+                return ResponseEntity.notFound().build();
+            }
+        } else {
+            result = componentService.patch(id, version, patch);
+            if (result == null) {
+                return ResponseEntity.notFound().build();
+            }
+            // A patch changing nothing leaves the version as it is
+            if (result.getVersion() != version) {
+                componentSearchBackend.index(result);
+                componentChangeService.publish(
+                    new ComponentChange(result.getChangeSequence(), ComponentChange.Type.UPDATED, id, result));
+            }
+        }
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id.toString()))
+            .eTag(ETagUtil.fromVersion(result.getVersion()))
             .body(result);
     }
 
     /**
      * GET  /components : get all the components.
+     * <p>
+     * The page is validated by the version of the whole collection, so a 304 (Not Modified) is answered without
+     * running the query.
      *
      * @param pageable the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of components in body
+     * @param webRequest the request, to check its validators
+     * @return the ResponseEntity with status 200 (OK) and the list of components in body,
+     * or with status 304 (Not Modified) if no component changed
      */
     @GetMapping("/components")
     @Timed
-    public ResponseEntity<List<Component>> getAllComponents(@ApiParam Pageable pageable) {
+    public ResponseEntity<List<ComponentDTO>> getAllComponents(@ApiParam Pageable pageable, WebRequest webRequest) {
         log.debug("REST request to get a page of Components");
-        Page<Component> page = componentRepository.findAll(pageable);
+        if (webRequest.checkNotModified(ETagUtil.fromCollectionVersion(componentChangeService.getCollectionVersion()),
+                componentChangeService.getCollectionLastModified())) {
+            return null;
+        }
+        Page<ComponentDTO> page = componentService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/components");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
     /**
      * GET  /components/:id : get the "id" component.
+     * <p>
+     * The ETag is the version of the component, read from the second-level cache when possible, and the
+     * Last-Modified date is the one of the whole collection, so an If-Modified-Since request is answered without
+     * reading the component.
      *
      * @param id the id of the component to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the component, or with status 404 (Not Found)
+     * @param webRequest the request, to check its validators
+     * @return the ResponseEntity with status 200 (OK) and with body the component, or with status 404 (Not Found),
+     * or with status 304 (Not Modified) if the component did not change
      */
     @GetMapping("/components/{id}")
     @Timed
-    public ResponseEntity<Component> getComponent(@PathVariable Long id) {
+    public ResponseEntity<Component> getComponent(@PathVariable Long id, WebRequest webRequest) {
         log.debug("REST request to get Component : {}", id);
-        Component component = componentRepository.findOne(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(component));
+        hotKeyService.recordComponent(id);
+        long lastModified = componentChangeService.getCollectionLastModified();
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) == null && webRequest.checkNotModified(lastModified)) {
+            return null;
+        }
+        Component component = componentWriteBehindService.isEnabled() ? componentWriteBehindService.findOne(id) :
+            componentService.findOne(id);
+        if (component == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(ETagUtil.fromVersion(component.getVersion()), lastModified)) {
+            return null;
+        }
+        return ResponseEntity.ok().body(component);
+    }
+
+    /**
+     * GET  /components?ids=:ids : get the components with the given ids.
+     *
+     * @param ids the ids of the components to retrieve, at most 1000
+     * @return the ResponseEntity with status 200 (OK) and with body the components found, in the order of the ids,
+     * and the ids not found, or with status 400 (Bad Request) if there are too many ids
+     */
+    @GetMapping(value = "/components", params = "ids")
+    @Timed
+    public ResponseEntity<ComponentsByIdVM> getComponentsById(@RequestParam List<Long> ids) {
+        log.debug("REST request to get Components : {}", ids);
+        return findComponentsById(ids);
+    }
+
+    /**
+     * POST  /components/_get : get the components with the given ids, for lists too long for a query string.
+     *
+     * @param ids the ids of the components to retrieve, at most 1000
+     * @return the ResponseEntity with status 200 (OK) and with body the components found, in the order of the ids,
+     * and the ids not found, or with status 400 (Bad Request) if there are too many ids
+     */
+    @PostMapping("/components/_get")
+    @Timed
+    public ResponseEntity<ComponentsByIdVM> postComponentsById(@RequestBody List<Long> ids) {
+        log.debug("REST request to get Components : {}", ids);
+        return findComponentsById(ids);
+    }
+
+    private ResponseEntity<ComponentsByIdVM> findComponentsById(List<Long> ids) {
+        Set<Long> uniqueIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (uniqueIds.size() > MAX_IDS) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "toomanyids",
+                "At most " + MAX_IDS + " components can be read at once")).body(null);
+        }
+        Map<Long, Component> components = componentWriteBehindService.isEnabled() ?
+            componentWriteBehindService.findAllById(uniqueIds) : componentService.findAllById(uniqueIds);
+        List<Long> missingIds = uniqueIds.stream().filter(id -> !components.containsKey(id)).collect(Collectors.toList());
+        return ResponseEntity.ok(new ComponentsByIdVM(new ArrayList<>(components.values()), missingIds));
     }
 
     /**
@@ -131,24 +305,86 @@ public class ComponentResource {
     @Timed
     public ResponseEntity<Void> deleteComponent(@PathVariable Long id) {
         log.debug("REST request to delete Component : {}", id);
-        componentRepository.delete(id);
-        componentSearchRepository.delete(id);
+        if (componentWriteBehindService.isEnabled()) {
+            componentWriteBehindService.delete(id);
+        } else {
+            long sequence = componentService.delete(id);
+            componentSearchBackend.delete(id);
+            componentChangeService.publish(new ComponentChange(sequence, ComponentChange.Type.DELETED, id, null));
+        }
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
+    /**
+     * GET  /components/_changes : get the changes of the components after a position in the change sequence.
+     * <p>
+     * Start with since=0 to get every component, then pass the sequence of the last change received. Created and
+     * updated components are returned with their current state, deleted components with their id only. The Link
+     * header has a "next" link when more changes may follow. Deletions are only kept for the tombstone retention
+     * period: a client that last synced before the purged ones must drop its copy and sync again from 0.
+     *
+     * @param since the position in the change sequence, exclusive
+     * @param size the maximum number of changes
+     * @return the ResponseEntity with status 200 (OK) and the list of changes in body, or with status 410 (Gone) if
+     * deletions after since were purged
+     */
+    @GetMapping("/components/_changes")
+    @Timed
+    public ResponseEntity<List<ComponentChange>> getComponentChanges(@RequestParam long since,
+            @RequestParam(defaultValue = "100") int size) {
+        log.debug("REST request to get the Component changes since {}", since);
+        int changesSize = Math.max(1, Math.min(size, MAX_CHANGES_SIZE));
+        List<ComponentChange> changes = componentService.findChangesSince(since, changesSize);
+        HttpHeaders headers = new HttpHeaders();
+        if (changes.size() == changesSize) {
+            long next = changes.get(changes.size() - 1).getSequence();
+            headers.add(HttpHeaders.LINK,
+                "<" + "/api/components/_changes?since=" + next + "&size=" + changesSize + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(changes, headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /components/_changes/stream : subscribe to the changes of the components, as Server-Sent Events.
+     * <p>
+     * Each event is named after the type of change ("created", "updated" or "deleted"), and its id can be sent back
+     * in the Last-Event-ID header to resume the subscription. A "reset" event means that the changes since the last
+     * event are no longer available here, and that the client should catch up with GET /components/_changes.
+     *
+     * @param lastEventId the id of the last event received, to resume a subscription
+     * @return the stream of changes
+     */
+    @GetMapping(value = "/components/_changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Timed
+    public SseEmitter streamComponentChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.debug("REST request to subscribe to the Component changes after {}", lastEventId);
+        return componentChangeService.subscribe(lastEventId);
+    }
+
     /**
      * SEARCH  /_search/components?query=:query : search for the component corresponding
      * to the query.
+     * <p>
+     * The page is validated by the version of the whole collection, once the last change had time to be indexed.
      *
      * @param query the query of the component search 
      * @param pageable the pagination information
+     * @param webRequest the request, to check its validators
      * @return the result of the search
      */
     @GetMapping("/_search/components")
     @Timed
-    public ResponseEntity<List<Component>> searchComponents(@RequestParam String query, @ApiParam Pageable pageable) {
+    public ResponseEntity<List<Component>> searchComponents(@RequestParam String query, @ApiParam Pageable pageable,
+            WebRequest webRequest) {
         log.debug("REST request to search for a page of Components for query {}", query);
-        Page<Component> page = componentSearchRepository.search(queryStringQuery(query), pageable);
+        hotKeyService.recordQuery(query);
+        long version = componentChangeService.getCollectionVersion();
+        long lastModified = componentChangeService.getCollectionLastModified();
+        if (componentChangeService.isIndexed(lastModified) &&
+                webRequest.checkNotModified(ETagUtil.fromCollectionVersion(version), lastModified)) {
+            return null;
+        }
+        Page<Component> page = componentSearchBackend.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/components");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
@@ -0,0 +1,38 @@
+package com.innvo.web.rest;
+
+import com.innvo.service.HotKeyService;
+import com.innvo.web.rest.vm.HotKeysVM;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for viewing the hot keys.
+ */
+@RestController
+@RequestMapping("/management")
+public class HotKeyResource {
+
+    private final Logger log = LoggerFactory.getLogger(HotKeyResource.class);
+
+    private final HotKeyService hotKeyService;
+
+    public HotKeyResource(HotKeyService hotKeyService) {
+        this.hotKeyService = hotKeyService;
+    }
+
+    /**
+     * GET  /hotkeys : get the most requested component ids and search queries of this instance.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the hot keys in body, most requested first
+     */
+    @GetMapping("/hotkeys")
+    @Timed
+    public ResponseEntity<HotKeysVM> getHotKeys() {
+        log.debug("REST request to get the hot keys");
+        return ResponseEntity.ok(new HotKeysVM(hotKeyService.getHotComponents(), hotKeyService.getHotQueries()));
+    }
+}
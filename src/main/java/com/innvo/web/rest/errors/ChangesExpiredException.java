@@ -0,0 +1,14 @@
+package com.innvo.web.rest.errors;
+
+/**
+ * Thrown when the changes after a position in the change sequence are no longer all available, because some of
+ * the tombstones after it were purged: the client must sync again from the start.
+ */
+public class ChangesExpiredException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ChangesExpiredException(long since, long purgedSequence) {
+        super("Changes up to " + purgedSequence + " were purged, sync again from 0 instead of " + since);
+    }
+}
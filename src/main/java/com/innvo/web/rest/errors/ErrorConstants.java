@@ -7,6 +7,9 @@ public final class ErrorConstants {
     public static final String ERR_VALIDATION = "error.validation";
     public static final String ERR_METHOD_NOT_SUPPORTED = "error.methodNotSupported";
     public static final String ERR_INTERNAL_SERVER_ERROR = "error.internalServerError";
+    public static final String ERR_SEARCH_QUERY_REJECTED = "error.searchQueryRejected";
+    public static final String ERR_LOAD_UNSUPPORTED = "error.loadUnsupported";
+    public static final String ERR_CHANGES_EXPIRED = "error.changesExpired";
 
     private ErrorConstants() {
     }
@@ -27,6 +27,13 @@ public class ExceptionTranslator {
         return new ErrorVM(ErrorConstants.ERR_CONCURRENCY_FAILURE);
     }
 
+    @ExceptionHandler(ChangesExpiredException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    @ResponseBody
+    public ErrorVM processChangesExpiredError(ChangesExpiredException ex) {
+        return new ErrorVM(ErrorConstants.ERR_CHANGES_EXPIRED, ex.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -0,0 +1,40 @@
+package com.innvo.web.rest.util;
+
+/**
+ * Utility class for handling entity tags.
+ *
+ * <p>
+ * Entity tags are strong validators derived from the version of an entity, see
+ * <a href="https://tools.ietf.org/html/rfc7232">RFC 7232</a>.
+ */
+public final class ETagUtil {
+
+    private ETagUtil() {
+    }
+
+    public static String fromVersion(long version) {
+        return "\"" + version + "\"";
+    }
+
+    public static String fromCollectionVersion(long version) {
+        return "\"c" + version + "\"";
+    }
+
+    /**
+     * Get the version from an If-Match header.
+     *
+     * @param ifMatch the header value
+     * @return the version, or null if the header does not hold a single strong entity tag of a version
+     */
+    public static Long toVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.valueOf(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.innvo.web.rest.vm;
+
+import com.innvo.domain.Component;
+
+import java.util.List;
+
+/**
+ * View Model object for the components found by id, in the order of the requested ids, and the ids not found.
+ */
+public class ComponentsByIdVM {
+
+    private List<Component> components;
+
+    private List<Long> missingIds;
+
+    public ComponentsByIdVM(List<Component> components, List<Long> missingIds) {
+        this.components = components;
+        this.missingIds = missingIds;
+    }
+
+    public List<Component> getComponents() {
+        return components;
+    }
+
+    public void setComponents(List<Component> components) {
+        this.components = components;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentsByIdVM{" +
+            "components=" + components +
+            ", missingIds=" + missingIds +
+            '}';
+    }
+}
@@ -0,0 +1,45 @@
+package com.innvo.web.rest.vm;
+
+import com.innvo.config.cache.HeavyHitters;
+
+import java.util.List;
+
+/**
+ * View Model object for the most requested component ids and search queries, with their estimated recent number of
+ * requests.
+ */
+public class HotKeysVM {
+
+    private List<HeavyHitters.Estimate<Long>> components;
+
+    private List<HeavyHitters.Estimate<String>> queries;
+
+    public HotKeysVM(List<HeavyHitters.Estimate<Long>> components, List<HeavyHitters.Estimate<String>> queries) {
+        this.components = components;
+        this.queries = queries;
+    }
+
+    public List<HeavyHitters.Estimate<Long>> getComponents() {
+        return components;
+    }
+
+    public void setComponents(List<HeavyHitters.Estimate<Long>> components) {
+        this.components = components;
+    }
+
+    public List<HeavyHitters.Estimate<String>> getQueries() {
+        return queries;
+    }
+
+    public void setQueries(List<HeavyHitters.Estimate<String>> queries) {
+        this.queries = queries;
+    }
+
+    @Override
+    public String toString() {
+        return "HotKeysVM{" +
+            "components=" + components.size() +
+            ", queries=" + queries.size() +
+            '}';
+    }
+}
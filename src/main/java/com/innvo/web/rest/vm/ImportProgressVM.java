@@ -0,0 +1,91 @@
+package com.innvo.web.rest.vm;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * View Model object for the progress of a component import, sent as it runs.
+ * <p>
+ * The number of inserted and rejected components is only known once they are written. An error ends the import.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportProgressVM {
+
+    private long rows;
+
+    private Long inserted;
+
+    private Long rejected;
+
+    private long elapsedInMs;
+
+    private long rowsPerSecond;
+
+    private String error;
+
+    public ImportProgressVM(long rows, Long inserted, Long rejected, long elapsedInMs) {
+        this.rows = rows;
+        this.inserted = inserted;
+        this.rejected = rejected;
+        this.elapsedInMs = elapsedInMs;
+        this.rowsPerSecond = elapsedInMs > 0 ? rows * 1000 / elapsedInMs : rows;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public Long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(Long inserted) {
+        this.inserted = inserted;
+    }
+
+    public Long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(Long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getElapsedInMs() {
+        return elapsedInMs;
+    }
+
+    public void setElapsedInMs(long elapsedInMs) {
+        this.elapsedInMs = elapsedInMs;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportProgressVM{" +
+            "rows=" + rows +
+            ", inserted=" + inserted +
+            ", rejected=" + rejected +
+            ", elapsedInMs=" + elapsedInMs +
+            ", error='" + error + "'" +
+            '}';
+    }
+}
@@ -0,0 +1,90 @@
+import _root_.io.gatling.core.scenario.Simulation
+import ch.qos.logback.classic.{Level, LoggerContext}
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import org.slf4j.LoggerFactory
+
+import scala.concurrent.duration._
+
+/**
+ * Performance test for the Component reads and writes through the second-level cache, to compare the Hazelcast
+ * serializers with Java serialization.
+ *
+ * Run it once against a deployment of the previous release, and once against this one, with at least two instances
+ * so that the cache entries are read from and written to other members. Each user creates a component, then reads it
+ * nine times for each update, so the "Get cached component" and "Update cached component" requests measure the get
+ * and put cost of the cache. The serialized size is compared with the "ownedEntryMemoryCost" of the
+ * "com.innvo.domain.Component" map, in the Hazelcast Management Center or over JMX, after the run.
+ *
+ * HTTP caching is disabled, so that every read goes to the second-level cache instead of being answered with 304
+ * (Not Modified).
+ */
+class ComponentCacheGatlingTest extends Simulation {
+
+    val context: LoggerContext = LoggerFactory.getILoggerFactory.asInstanceOf[LoggerContext]
+    // Log all HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("TRACE"))
+    // Log failed HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("DEBUG"))
+
+    val baseURL = Option(System.getProperty("baseURL")) getOrElse """http://127.0.0.1:8080"""
+
+    val httpConf = http
+        .baseURL(baseURL)
+        .disableCaching
+        .acceptHeader("*/*")
+        .acceptEncodingHeader("gzip, deflate")
+        .acceptLanguageHeader("fr,fr-fr;q=0.8,en-us;q=0.5,en;q=0.3")
+        .connectionHeader("keep-alive")
+        .userAgentHeader("Mozilla/5.0 (Macintosh; Intel Mac OS X 10.10; rv:33.0) Gecko/20100101 Firefox/33.0")
+
+    val headers_http_authentication = Map(
+        "Content-Type" -> """application/json""",
+        "Accept" -> """application/json"""
+    )
+
+    val headers_http_authenticated = Map(
+        "Accept" -> """application/json""",
+        "Authorization" -> "${access_token}"
+    )
+
+    val scn = scenario("Read and update a cached Component")
+        .exec(http("Authentication")
+        .post("/api/authenticate")
+        .headers(headers_http_authentication)
+        .body(StringBody("""{"username":"admin", "password":"admin"}""")).asJSON
+        .check(header.get("Authorization").saveAs("access_token"))).exitHereIfFailed
+        .pause(1)
+        .exec(http("Create new component")
+        .post("/adapcomponent/api/components")
+        .headers(headers_http_authenticated)
+        .body(StringBody("""{"id":null, "name":"SAMPLE_TEXT"}""")).asJSON
+        .check(status.is(201))
+        .check(jsonPath("$.id").saveAs("component_id"))
+        .check(jsonPath("$.version").saveAs("component_version"))).exitHereIfFailed
+        .repeat(20) {
+            repeat(9) {
+                exec(http("Get cached component")
+                .get("/adapcomponent/api/components/${component_id}")
+                .headers(headers_http_authenticated)
+                .check(status.is(200))
+                .check(jsonPath("$.version").saveAs("component_version")))
+                .pause(100 milliseconds)
+            }
+            .exec(http("Update cached component")
+            .put("/adapcomponent/api/components")
+            .headers(headers_http_authenticated)
+            .body(StringBody("""{"id":${component_id}, "name":"SAMPLE_TEXT", "version":${component_version}}""")).asJSON
+            .check(status.is(200)))
+            .pause(100 milliseconds)
+        }
+        .exec(http("Delete created component")
+        .delete("/adapcomponent/api/components/${component_id}")
+        .headers(headers_http_authenticated))
+
+    val users = scenario("Users").exec(scn)
+
+    setUp(
+        users.inject(rampUsers(100) over (1 minutes))
+    ).protocols(httpConf)
+}
@@ -0,0 +1,74 @@
+import _root_.io.gatling.core.scenario.Simulation
+import ch.qos.logback.classic.{Level, LoggerContext}
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import org.slf4j.LoggerFactory
+
+import scala.concurrent.duration._
+
+/**
+ * Performance test for the Component list, to compare the DTO projection with the entity read path.
+ *
+ * Run it once against a deployment of the previous release, which loads the pages as managed entities, and once
+ * against this one, on the same data set, see ComponentSearchGatlingTest to fill the component table. Latency is
+ * reported by Gatling; allocation is compared with the JVM started with
+ *
+ *   -XX:+PrintGCDetails -Xloggc:gc.log
+ *
+ * or with the "jvm.memory" and "jvm.garbage" metrics of /management/metrics, before and after the run.
+ *
+ * HTTP caching is disabled, so that every request runs the query instead of being answered with 304 (Not Modified).
+ */
+class ComponentListGatlingTest extends Simulation {
+
+    val context: LoggerContext = LoggerFactory.getILoggerFactory.asInstanceOf[LoggerContext]
+    // Log all HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("TRACE"))
+    // Log failed HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("DEBUG"))
+
+    val baseURL = Option(System.getProperty("baseURL")) getOrElse """http://127.0.0.1:8080"""
+
+    val httpConf = http
+        .baseURL(baseURL)
+        .disableCaching
+        .acceptHeader("*/*")
+        .acceptEncodingHeader("gzip, deflate")
+        .acceptLanguageHeader("fr,fr-fr;q=0.8,en-us;q=0.5,en;q=0.3")
+        .connectionHeader("keep-alive")
+        .userAgentHeader("Mozilla/5.0 (Macintosh; Intel Mac OS X 10.10; rv:33.0) Gecko/20100101 Firefox/33.0")
+
+    val headers_http_authentication = Map(
+        "Content-Type" -> """application/json""",
+        "Accept" -> """application/json"""
+    )
+
+    val headers_http_authenticated = Map(
+        "Accept" -> """application/json""",
+        "Authorization" -> "${access_token}"
+    )
+
+    val pages = Iterator.continually(Map("page" -> scala.util.Random.nextInt(50)))
+
+    val scn = scenario("List the Component entity")
+        .exec(http("Authentication")
+        .post("/api/authenticate")
+        .headers(headers_http_authentication)
+        .body(StringBody("""{"username":"admin", "password":"admin"}""")).asJSON
+        .check(header.get("Authorization").saveAs("access_token"))).exitHereIfFailed
+        .pause(1)
+        .repeat(100) {
+            feed(pages)
+            .exec(http("Get a page of components")
+            .get("/adapcomponent/api/components?page=${page}&size=100&sort=id")
+            .headers(headers_http_authenticated)
+            .check(status.is(200)))
+            .pause(100 milliseconds)
+        }
+
+    val users = scenario("Users").exec(scn)
+
+    setUp(
+        users.inject(rampUsers(100) over (1 minutes))
+    ).protocols(httpConf)
+}
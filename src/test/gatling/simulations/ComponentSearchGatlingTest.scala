@@ -0,0 +1,76 @@
+import _root_.io.gatling.core.scenario.Simulation
+import ch.qos.logback.classic.{Level, LoggerContext}
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+import org.slf4j.LoggerFactory
+
+import scala.concurrent.duration._
+
+/**
+ * Performance test for the Component search, to compare the search backends.
+ *
+ * Run it once against a deployment with "application.search.backend: elasticsearch" and once with
+ * "application.search.backend: database", on the same data set. The component table can be filled with
+ * 100k or 10M rows using:
+ *
+ *   insert into component (id, name)
+ *   select nextval('hibernate_sequence'), md5(i::text) from generate_series(1, 100000) as i;
+ *
+ * When using Elasticsearch, the rows must then be indexed as well.
+ *
+ * The results are not recorded yet, see the "Other tests" section of the README.
+ */
+class ComponentSearchGatlingTest extends Simulation {
+
+    val context: LoggerContext = LoggerFactory.getILoggerFactory.asInstanceOf[LoggerContext]
+    // Log all HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("TRACE"))
+    // Log failed HTTP requests
+    //context.getLogger("io.gatling.http").setLevel(Level.valueOf("DEBUG"))
+
+    val baseURL = Option(System.getProperty("baseURL")) getOrElse """http://127.0.0.1:8080"""
+
+    val httpConf = http
+        .baseURL(baseURL)
+        .inferHtmlResources()
+        .acceptHeader("*/*")
+        .acceptEncodingHeader("gzip, deflate")
+        .acceptLanguageHeader("fr,fr-fr;q=0.8,en-us;q=0.5,en;q=0.3")
+        .connectionHeader("keep-alive")
+        .userAgentHeader("Mozilla/5.0 (Macintosh; Intel Mac OS X 10.10; rv:33.0) Gecko/20100101 Firefox/33.0")
+
+    val headers_http_authentication = Map(
+        "Content-Type" -> """application/json""",
+        "Accept" -> """application/json"""
+    )
+
+    val headers_http_authenticated = Map(
+        "Accept" -> """application/json""",
+        "Authorization" -> "${access_token}"
+    )
+
+    // Prefixes of the md5 names generated above
+    val queries = Iterator.continually(Map("query" -> scala.util.Random.alphanumeric.filter(c => c.isDigit || c <= 'f').take(3).mkString.toLowerCase))
+
+    val scn = scenario("Search the Component entity")
+        .exec(http("Authentication")
+        .post("/api/authenticate")
+        .headers(headers_http_authentication)
+        .body(StringBody("""{"username":"admin", "password":"admin"}""")).asJSON
+        .check(header.get("Authorization").saveAs("access_token"))).exitHereIfFailed
+        .pause(1)
+        .repeat(100) {
+            feed(queries)
+            .exec(http("Search components")
+            .get("/adapcomponent/api/_search/components?query=${query}")
+            .headers(headers_http_authenticated)
+            .check(status.is(200)))
+            .pause(100 milliseconds)
+        }
+
+    val users = scenario("Users").exec(scn)
+
+    setUp(
+        users.inject(rampUsers(100) over (1 minutes))
+    ).protocols(httpConf)
+}
@@ -0,0 +1,55 @@
+package com.innvo.config;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.config.ElasticsearchConfiguration.CustomElasticsearchTemplate;
+import com.innvo.domain.Component;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CustomElasticsearchTemplate.
+ *
+ * @see ElasticsearchConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class ElasticsearchConfigurationIntTest {
+
+    @Autowired
+    private CustomElasticsearchTemplate elasticsearchTemplate;
+
+    @Test
+    public void prepareBytesIndex() {
+        Component component = new Component().name("AAAAAAAAAA");
+        component.setId(1L);
+
+        // The index name and type default to the ones of the entity class, when left null or blank
+        IndexQuery query = new IndexQuery();
+        query.setObject(component);
+        assertRequest(elasticsearchTemplate.prepareBytesIndex(query).request(), "component", "component", "1");
+        query.setIndexName("");
+        query.setType(" ");
+        assertRequest(elasticsearchTemplate.prepareBytesIndex(query).request(), "component", "component", "1");
+
+        // But are kept when given, as is the id
+        query.setIndexName("other-index");
+        query.setType("other-type");
+        query.setId("2");
+        assertRequest(elasticsearchTemplate.prepareBytesIndex(query).request(), "other-index", "other-type", "2");
+    }
+
+    private static void assertRequest(IndexRequest request, String index, String type, String id) {
+        assertThat(request.index()).isEqualTo(index);
+        assertThat(request.type()).isEqualTo(type);
+        assertThat(request.id()).isEqualTo(id);
+        assertThat(request.source().length()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.innvo.config;
+
+import com.innvo.repository.AsyncAuditEventWriter;
+import com.innvo.service.BulkIndexService;
+import com.innvo.service.ComponentChangeService;
+
+import com.netflix.discovery.EurekaClient;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the GracefulShutdown, with mocks of the components it stops.
+ *
+ * @see GracefulShutdown
+ */
+public class GracefulShutdownTest {
+
+    @Test
+    public void shutDownInOrder() throws Exception {
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getShutdown().setDeregistrationDelayInSeconds(1);
+        ScheduledAnnotationBeanPostProcessor scheduledJobs = mock(ScheduledAnnotationBeanPostProcessor.class);
+        EurekaClient eurekaClient = mock(EurekaClient.class);
+        UndertowGracefulShutdown undertowGracefulShutdown = mock(UndertowGracefulShutdown.class);
+        when(undertowGracefulShutdown.drain(anyLong())).thenReturn(true);
+        ComponentChangeService changeService = mock(ComponentChangeService.class);
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+        CacheConfiguration cacheConfiguration = mock(CacheConfiguration.class);
+        BulkIndexService bulkIndexService = mock(BulkIndexService.class);
+        AsyncAuditEventWriter asyncAuditEventWriter = mock(AsyncAuditEventWriter.class);
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        GracefulShutdown gracefulShutdown = new GracefulShutdown(applicationContext, applicationProperties,
+            objectProvider(scheduledJobs), objectProvider(eurekaClient), undertowGracefulShutdown, changeService,
+            executor, cacheConfiguration, bulkIndexService, asyncAuditEventWriter,
+            objectProvider(Collections.singletonList(dataSource)));
+
+        // The closing of a child context does not shut the instance down
+        gracefulShutdown.onContextClosed(new ContextClosedEvent(mock(ApplicationContext.class)));
+        verifyZeroInteractions(scheduledJobs, eurekaClient, undertowGracefulShutdown);
+
+        // The instance keeps serving after its deregistration, then drains the requests and the pending writes
+        long start = System.currentTimeMillis();
+        gracefulShutdown.onContextClosed(new ContextClosedEvent(applicationContext));
+        InOrder inOrder = inOrder(scheduledJobs, eurekaClient, changeService, undertowGracefulShutdown, executor,
+            cacheConfiguration, bulkIndexService, asyncAuditEventWriter, dataSource);
+        inOrder.verify(scheduledJobs).destroy();
+        inOrder.verify(eurekaClient).shutdown();
+        inOrder.verify(changeService).destroy();
+        inOrder.verify(undertowGracefulShutdown).drain(30000L);
+        inOrder.verify(executor).destroy();
+        inOrder.verify(cacheConfiguration).flushWriteBehind();
+        inOrder.verify(bulkIndexService).destroy();
+        inOrder.verify(asyncAuditEventWriter).destroy();
+        inOrder.verify(cacheConfiguration).destroy();
+        inOrder.verify(dataSource).close();
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(1000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> objectProvider(T object) {
+        ObjectProvider<T> objectProvider = mock(ObjectProvider.class);
+        when(objectProvider.getIfAvailable()).thenReturn(object);
+        return objectProvider;
+    }
+}
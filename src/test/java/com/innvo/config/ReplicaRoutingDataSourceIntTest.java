@@ -0,0 +1,108 @@
+package com.innvo.config;
+
+import com.innvo.AdapcomponentApp;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ReplicaRoutingDataSource, routing between two H2 pools, and sharing its recent writers with
+ * a second instance through Hazelcast.
+ *
+ * @see ReplicaRoutingDataSource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class ReplicaRoutingDataSourceIntTest {
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Test
+    public void routeReadsToReplica() throws Exception {
+        HikariDataSource primary = testDataSource("primary");
+        HikariDataSource replica = testDataSource("replica");
+        IMap<String, Boolean> recentWriters = hazelcastInstance.getMap("replicaRecentWritersTest");
+        ReplicaRoutingDataSource routingDataSource = testRoutingDataSource(primary, replica, recentWriters);
+        // Another instance, sharing the recent writers
+        ReplicaRoutingDataSource otherRoutingDataSource = testRoutingDataSource(primary, replica, recentWriters);
+        try {
+            // Reads go to the primary until the replica is in sync
+            assertThat(read(routingDataSource, "reader")).isEqualTo("primary");
+            routingDataSource.setReplicaInSync(true);
+            otherRoutingDataSource.setReplicaInSync(true);
+            assertThat(read(routingDataSource, "reader")).isEqualTo("replica");
+
+            // A user reads their own write from the primary, on this instance at once, and on the others once notified
+            assertThat(write(routingDataSource, "writer")).isEqualTo("primary");
+            assertThat(read(routingDataSource, "writer")).isEqualTo("primary");
+            assertThat(read(routingDataSource, "reader")).isEqualTo("replica");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (read(otherRoutingDataSource, "writer").equals("replica")
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(read(otherRoutingDataSource, "writer")).isEqualTo("primary");
+
+            // Then from the replica again, after the tolerated lag
+            Thread.sleep(1000);
+            routingDataSource.expireRecentWriters();
+            assertThat(read(routingDataSource, "writer")).isEqualTo("replica");
+            assertThat(read(otherRoutingDataSource, "writer")).isEqualTo("replica");
+        } finally {
+            SecurityContextHolder.clearContext();
+            recentWriters.destroy();
+            primary.close();
+            replica.close();
+        }
+    }
+
+    private static HikariDataSource testDataSource(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name + "-test");
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-test;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        new JdbcTemplate(dataSource).execute("create table if not exists route_test as select '" + name + "' name");
+        return dataSource;
+    }
+
+    private ReplicaRoutingDataSource testRoutingDataSource(HikariDataSource primary, HikariDataSource replica,
+            IMap<String, Boolean> recentWriters) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replica, recentWriters,
+            1000, new MetricRegistry().meter("replica-reads"), new MetricRegistry().meter("primary-reads"));
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+
+    private static String read(ReplicaRoutingDataSource routingDataSource, String login) {
+        return transaction(routingDataSource, login, true);
+    }
+
+    private static String write(ReplicaRoutingDataSource routingDataSource, String login) {
+        return transaction(routingDataSource, login, false);
+    }
+
+    private static String transaction(ReplicaRoutingDataSource routingDataSource, String login, boolean readOnly) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(login, null));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+            new JdbcTemplate(dataSource).queryForObject("select name from route_test", String.class));
+    }
+}
@@ -0,0 +1,70 @@
+package com.innvo.config.cache;
+
+import com.innvo.AdapcomponentApp;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.IMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TwoLevelCache, the local cache in front of each Hazelcast Spring cache.
+ *
+ * @see TwoLevelCache
+ * @see TwoLevelCacheManager
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class TwoLevelCacheIntTest {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+    private static final String UPDATED_NAME = "BBBBBBBBBB";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cacheHotKeysLocally() throws Exception {
+        Cache cache = cacheManager.getCache("localCacheTest");
+        IMap<Object, Object> hazelcastMap = (IMap<Object, Object>) cache.getNativeCache();
+        long localHits = metricRegistry.meter("cache.localCacheTest.local.hits").getCount();
+        long hazelcastHits = metricRegistry.meter("cache.localCacheTest.hazelcast.hits").getCount();
+        try {
+            cache.put("hot", DEFAULT_NAME);
+            assertThat(hazelcastMap.containsKey("hot")).isTrue();
+            for (int i = 0; i < 20; i++) {
+                assertThat(cache.get("hot", String.class)).isEqualTo(DEFAULT_NAME);
+            }
+            assertThat(metricRegistry.meter("cache.localCacheTest.local.hits").getCount() - localHits).isEqualTo(20);
+
+            // One-off keys, read from Hazelcast once, do not evict the hot key from the local cache
+            for (int i = 0; i < 200; i++) {
+                hazelcastMap.put("cold" + i, UPDATED_NAME);
+                assertThat(cache.get("cold" + i, String.class)).isEqualTo(UPDATED_NAME);
+            }
+            assertThat(metricRegistry.meter("cache.localCacheTest.hazelcast.hits").getCount() - hazelcastHits)
+                .isEqualTo(200);
+            assertThat(cache.get("hot", String.class)).isEqualTo(DEFAULT_NAME);
+            assertThat(metricRegistry.meter("cache.localCacheTest.local.hits").getCount() - localHits).isEqualTo(21);
+            assertThat(metricRegistry.meter("cache.localCacheTest.hazelcast.hits").getCount() - hazelcastHits)
+                .isEqualTo(200);
+
+            cache.evict("hot");
+            assertThat(cache.get("hot")).isNull();
+            assertThat(hazelcastMap.containsKey("hot")).isFalse();
+        } finally {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.innvo.config.hazelcast;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.domain.Component;
+import com.innvo.domain.ComponentChange;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.hibernate.region.CacheKeyImpl;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.hazelcast.spi.serialization.SerializationService;
+import org.hibernate.type.LongType;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the Hazelcast serializers of the cached components, of their changes, and of the Hibernate types
+ * in the second-level cache keys.
+ *
+ * @see ComponentSerializer
+ * @see ComponentChangeSerializer
+ * @see HibernateBasicTypeSerializer
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class HazelcastSerializerIntTest {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Test
+    public void serializeCachedValuesCompactly() throws Exception {
+        SerializationService serializationService =
+            ((SerializationServiceSupport) hazelcastInstance).getSerializationService();
+        Component component = new Component().name(DEFAULT_NAME);
+        component.setId(1L);
+        component.setChangeSequence(2L);
+        component.setVersion(3L);
+
+        Data componentData = serializationService.toData(component);
+        Component readComponent = serializationService.toObject(componentData);
+        assertThat(readComponent.getId()).isEqualTo(1L);
+        assertThat(readComponent.getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(readComponent.getChangeSequence()).isEqualTo(2L);
+        assertThat(readComponent.getVersion()).isEqualTo(3L);
+        assertThat(componentData.totalSize()).isLessThan(javaSerializedSize(component) / 4);
+
+        ComponentChange change = new ComponentChange(2L, ComponentChange.Type.UPDATED, 1L, component);
+        Data changeData = serializationService.toData(change);
+        ComponentChange readChange = serializationService.toObject(changeData);
+        assertThat(readChange.getSequence()).isEqualTo(2L);
+        assertThat(readChange.getType()).isEqualTo(ComponentChange.Type.UPDATED);
+        assertThat(readChange.getComponent().getName()).isEqualTo(DEFAULT_NAME);
+        assertThat(changeData.totalSize()).isLessThan(javaSerializedSize(change) / 4);
+
+        // The keys of the second-level cache no longer hold the Java serialization of the id type
+        CacheKeyImpl key = new CacheKeyImpl(1L, Component.class.getName(), null, LongType.INSTANCE);
+        Data keyData = serializationService.toData(key);
+        assertThat((Object) serializationService.toObject(keyData)).isEqualTo(key);
+        assertThat(keyData.totalSize()).isLessThan(javaSerializedSize(LongType.INSTANCE) / 4);
+    }
+
+    private static int javaSerializedSize(Serializable value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.size();
+    }
+}
@@ -0,0 +1,85 @@
+package com.innvo.repository;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.domain.Component;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the JDBC batch writes of the ComponentRepository, used by the write-behind mode.
+ *
+ * @see ComponentRepositoryImpl
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class ComponentRepositoryIntTest {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+    private static final String UPDATED_NAME = "BBBBBBBBBB";
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Transactional
+    public void upsertAll() {
+        Long id = componentRepository.saveAndFlush(new Component().name(DEFAULT_NAME)).getId();
+
+        // Existing components are updated, and missing ones inserted
+        componentRepository.upsertAll(Arrays.asList(component(id, UPDATED_NAME, 10L, 2L),
+            component(-1L, DEFAULT_NAME, 11L, 0L)));
+        assertRow(id, UPDATED_NAME, 10L, 2L);
+        assertRow(-1L, DEFAULT_NAME, 11L, 0L);
+
+        // But not with an older version
+        componentRepository.upsertAll(Collections.singletonList(component(id, DEFAULT_NAME, 12L, 1L)));
+        assertRow(id, UPDATED_NAME, 10L, 2L);
+
+        componentRepository.upsertAll(Collections.emptyList());
+    }
+
+    @Test
+    @Transactional
+    public void deleteAllById() {
+        Long id = componentRepository.saveAndFlush(new Component().name(DEFAULT_NAME)).getId();
+        componentRepository.upsertAll(Collections.singletonList(component(-1L, DEFAULT_NAME, 11L, 0L)));
+
+        assertThat(componentRepository.deleteAllById(Collections.emptyList())).isEmpty();
+
+        // Only the existing components are reported deleted
+        assertThat(componentRepository.deleteAllById(Arrays.asList(id, -2L, -1L))).containsExactly(id, -1L);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from component where id in (?, ?)", Long.class,
+            id, -1L)).isEqualTo(0L);
+    }
+
+    private static Component component(Long id, String name, long changeSequence, long version) {
+        Component component = new Component().name(name);
+        component.setId(id);
+        component.setChangeSequence(changeSequence);
+        component.setVersion(version);
+        return component;
+    }
+
+    private void assertRow(Long id, String name, long changeSequence, long version) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("select name, change_seq, version from component " +
+            "where id = ?", id);
+        assertThat(row.get("name")).isEqualTo(name);
+        assertThat(((Number) row.get("change_seq")).longValue()).isEqualTo(changeSequence);
+        assertThat(((Number) row.get("version")).longValue()).isEqualTo(version);
+    }
+}
@@ -0,0 +1,169 @@
+package com.innvo.repository;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.config.ApplicationProperties;
+import com.innvo.config.Constants;
+import com.innvo.domain.PersistentAuditEvent;
+import com.innvo.service.AuditPartitionService;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CustomAuditEventRepository and its asynchronous writer, and for the purge of the expired
+ * audit events.
+ *
+ * @see CustomAuditEventRepository
+ * @see AsyncAuditEventWriter
+ * @see AuditPartitionService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class CustomAuditEventRepositoryIntTest {
+
+    private static final String PRINCIPAL = "audit-test-user";
+    private static final String TYPE = "audit-test-type";
+
+    @Autowired
+    private CustomAuditEventRepository customAuditEventRepository;
+
+    @Autowired
+    private AsyncAuditEventWriter asyncAuditEventWriter;
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private AuditPartitionService auditPartitionService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @After
+    public void cleanUp() {
+        // The writer commits its own transactions
+        jdbcTemplate.update("delete from jhi_persistent_audit_evt_data where event_id in " +
+            "(select event_id from jhi_persistent_audit_event where principal = ?)", PRINCIPAL);
+        jdbcTemplate.update("delete from jhi_persistent_audit_event where principal = ?", PRINCIPAL);
+    }
+
+    @Test
+    public void addAuditEvent() {
+        // An event written by Hibernate takes a block of ids of its own
+        PersistentAuditEvent persistentAuditEvent = new PersistentAuditEvent();
+        persistentAuditEvent.setPrincipal(PRINCIPAL);
+        persistentAuditEvent.setAuditEventType(TYPE);
+        persistentAuditEvent.setAuditEventDate(LocalDateTime.now());
+        persistenceAuditEventRepository.save(persistentAuditEvent);
+
+        Date before = new Date(System.currentTimeMillis() - 1000);
+        for (int i = 0; i < 3; i++) {
+            customAuditEventRepository.add(new AuditEvent(PRINCIPAL, TYPE, "test-key=test-value" + i));
+        }
+        customAuditEventRepository.add(new AuditEvent(PRINCIPAL, "AUTHORIZATION_FAILURE", "test-key=ignored"));
+        customAuditEventRepository.add(new AuditEvent(Constants.ANONYMOUS_USER, TYPE, "test-key=ignored"));
+
+        // Nothing is written until the writer flushes its queue
+        asyncAuditEventWriter.flush();
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("select e.event_id, d.name, d.value " +
+            "from jhi_persistent_audit_event e join jhi_persistent_audit_evt_data d on d.event_id = e.event_id " +
+            "where e.principal = ? order by e.event_id", PRINCIPAL);
+        assertThat(rows).hasSize(3);
+        assertThat(rows).extracting(row -> row.get("value"))
+            .containsOnly("test-value0", "test-value1", "test-value2");
+        List<Long> ids = jdbcTemplate.queryForList("select event_id from jhi_persistent_audit_event " +
+            "where principal = ? and event_type = ?", Long.class, PRINCIPAL, TYPE);
+        assertThat(ids).hasSize(4);
+        assertThat(new HashSet<>(ids)).hasSize(4).contains(persistentAuditEvent.getId());
+
+        List<AuditEvent> events = customAuditEventRepository.find(PRINCIPAL, before, TYPE);
+        assertThat(events).hasSize(4);
+        assertThat(events.stream().filter(event -> event.getData().containsKey("test-key")).count()).isEqualTo(3);
+        assertThat(customAuditEventRepository.find(Constants.ANONYMOUS_USER, before)).isEmpty();
+    }
+
+    @Test
+    public void addAuditEventToFullQueue() {
+        ApplicationProperties.Audit audit = applicationProperties.getAudit();
+        int queueCapacity = audit.getQueueCapacity();
+        ApplicationProperties.Audit.OverflowPolicy overflowPolicy = audit.getOverflowPolicy();
+        long discarded = metricRegistry.meter("audit.events.discarded").getCount();
+        long callerRuns = metricRegistry.meter("audit.events.caller-runs").getCount();
+        audit.setQueueCapacity(1);
+        try {
+            // Past the capacity, events are discarded
+            audit.setOverflowPolicy(ApplicationProperties.Audit.OverflowPolicy.DISCARD);
+            for (int i = 0; i < 5; i++) {
+                customAuditEventRepository.add(new AuditEvent(PRINCIPAL, TYPE, Collections.emptyMap()));
+            }
+            asyncAuditEventWriter.flush();
+            long discardedEvents = metricRegistry.meter("audit.events.discarded").getCount() - discarded;
+            assertThat(discardedEvents).isGreaterThan(0);
+            assertThat(countEvents()).isEqualTo(5 - discardedEvents);
+
+            // Or written by the caller
+            audit.setOverflowPolicy(ApplicationProperties.Audit.OverflowPolicy.CALLER_RUNS);
+            for (int i = 0; i < 5; i++) {
+                customAuditEventRepository.add(new AuditEvent(PRINCIPAL, TYPE, Collections.emptyMap()));
+            }
+            assertThat(metricRegistry.meter("audit.events.caller-runs").getCount() - callerRuns).isGreaterThan(0);
+            asyncAuditEventWriter.flush();
+            assertThat(countEvents()).isEqualTo(10 - discardedEvents);
+        } finally {
+            audit.setQueueCapacity(queueCapacity);
+            audit.setOverflowPolicy(overflowPolicy);
+        }
+    }
+
+    @Test
+    public void purgeExpiredAuditEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        insertEvent(-1L, now.minusDays(applicationProperties.getAudit().getRetentionInDays() + 1));
+        insertEvent(-2L, now.minusDays(1));
+
+        // Without partitions, as on H2, the expired events and their data are deleted
+        auditPartitionService.maintainAuditTables();
+
+        assertThat(jdbcTemplate.queryForList("select event_id from jhi_persistent_audit_event where principal = ?",
+            Long.class, PRINCIPAL)).containsExactly(-2L);
+        assertThat(jdbcTemplate.queryForList("select event_id from jhi_persistent_audit_evt_data " +
+            "where event_id in (-1, -2)", Long.class)).containsExactly(-2L);
+    }
+
+    private void insertEvent(Long id, LocalDateTime date) {
+        Timestamp eventDate = Timestamp.valueOf(date);
+        jdbcTemplate.update("insert into jhi_persistent_audit_event (event_id, principal, event_date, event_type) " +
+            "values (?, ?, ?, ?)", id, PRINCIPAL, eventDate, TYPE);
+        jdbcTemplate.update("insert into jhi_persistent_audit_evt_data (event_id, event_date, name, value) " +
+            "values (?, ?, ?, ?)", id, eventDate, "test-key", "test-value");
+    }
+
+    private long countEvents() {
+        return jdbcTemplate.queryForObject("select count(*) from jhi_persistent_audit_event where principal = ?",
+            Long.class, PRINCIPAL);
+    }
+}
@@ -0,0 +1,60 @@
+package com.innvo.repository;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.domain.Component;
+import com.innvo.domain.IdAllocationCounters;
+import com.innvo.service.ComponentService;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the allocation of the component ids by blocks, by Hibernate and by the IdBlockRepository.
+ *
+ * @see IdBlockRepository
+ * @see com.innvo.domain.MeteredPooledLoOptimizer
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class IdBlockRepositoryIntTest {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+
+    @Autowired
+    private IdBlockRepository idBlockRepository;
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Test
+    @Transactional
+    public void allocateIdsByBlocks() throws Exception {
+        long sequenceCallsBefore = IdAllocationCounters.getSequenceCalls();
+        long allocatedIdsBefore = IdAllocationCounters.getAllocatedIds();
+
+        // Hibernate takes one sequence value per block of 50 ids, not one per row
+        List<Component> components = componentService.saveAll(IntStream.range(0, 120)
+            .mapToObj(i -> new Component().name(DEFAULT_NAME)).collect(Collectors.toList()));
+        assertThat(IdAllocationCounters.getAllocatedIds() - allocatedIdsBefore).isEqualTo(120);
+        assertThat(IdAllocationCounters.getSequenceCalls() - sequenceCallsBefore).isLessThanOrEqualTo(3);
+        long firstId = components.get(0).getId();
+        assertThat(components.get(1).getId()).isEqualTo(firstId + 1);
+
+        // The bulk allocator takes the sequence values of all the blocks at once, after the ones of Hibernate
+        List<Long> firstIds = idBlockRepository.allocate(120);
+        assertThat(firstIds).hasSize(3);
+        assertThat(Collections.min(firstIds)).isGreaterThan(components.get(components.size() - 1).getId());
+        assertThat(IdAllocationCounters.getSequenceCalls() - sequenceCallsBefore).isLessThanOrEqualTo(6);
+    }
+}
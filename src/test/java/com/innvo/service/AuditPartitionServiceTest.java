@@ -0,0 +1,68 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.vendor.Database;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the AuditPartitionService on PostgreSQL, with a mock of the JdbcTemplate, as the test database
+ * does not partition the audit tables.
+ *
+ * @see AuditPartitionService
+ */
+public class AuditPartitionServiceTest {
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Test
+    public void maintainPartitionedAuditTables() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAudit().setRetentionInDays(90);
+        applicationProperties.getAudit().setPartitionsAhead(1);
+        JpaProperties jpaProperties = new JpaProperties();
+        jpaProperties.setDatabase(Database.POSTGRESQL);
+        LocalDate expiry = LocalDate.now().minusDays(90);
+        String expired = YearMonth.from(expiry).minusMonths(1).format(PARTITION_MONTH);
+        String kept = YearMonth.from(expiry).format(PARTITION_MONTH);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("jhi_persistent_audit_event")))
+            .thenReturn(Arrays.asList("jhi_persistent_audit_event_p" + expired,
+                "jhi_persistent_audit_event_p" + kept, "jhi_persistent_audit_event_default"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("jhi_persistent_audit_evt_data")))
+            .thenReturn(Arrays.asList("jhi_persistent_audit_evt_data_p" + expired,
+                "jhi_persistent_audit_evt_data_p" + kept, "jhi_persistent_audit_evt_data_default"));
+
+        new AuditPartitionService(jdbcTemplate, applicationProperties, jpaProperties).maintainAuditTables();
+
+        // The partitions of the current and next months are created
+        verify(jdbcTemplate).execute(contains("jhi_persistent_audit_event_p" + YearMonth.now().format(PARTITION_MONTH)));
+        verify(jdbcTemplate).execute(contains("jhi_persistent_audit_event_p" +
+            YearMonth.now().plusMonths(1).format(PARTITION_MONTH)));
+
+        // Only the partitions of the months before the expiry are dropped, the event data first
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("drop table if exists jhi_persistent_audit_evt_data_p" + expired);
+        inOrder.verify(jdbcTemplate).execute("drop table if exists jhi_persistent_audit_event_p" + expired);
+        verify(jdbcTemplate, never()).execute(endsWith("_p" + kept));
+        verify(jdbcTemplate, never()).execute(endsWith("_default"));
+
+        // And the expired events of the default partitions are deleted, the event data first
+        Timestamp before = Timestamp.valueOf(expiry.atStartOfDay());
+        inOrder.verify(jdbcTemplate).update(startsWith("delete from jhi_persistent_audit_evt_data_default "), eq(before));
+        inOrder.verify(jdbcTemplate).update(startsWith("delete from jhi_persistent_audit_event_default "), eq(before));
+    }
+}
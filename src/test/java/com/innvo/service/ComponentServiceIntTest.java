@@ -0,0 +1,171 @@
+package com.innvo.service;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.config.ApplicationProperties;
+import com.innvo.domain.Component;
+import com.innvo.domain.ComponentChange;
+import com.innvo.repository.ComponentChangeRepository;
+import com.innvo.repository.ComponentRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Test class for the change sequence of the ComponentService, with interleaved transactions.
+ *
+ * @see ComponentService
+ * @see ComponentChangeRepository
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class ComponentServiceIntTest {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+    private static final String UPDATED_NAME = "BBBBBBBBBB";
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    private ComponentChangeRepository componentChangeRepository;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService executor;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void cleanUp() {
+        executor.shutdownNow();
+        for (Long id : ids) {
+            jdbcTemplate.update("delete from component_tombstone where component_id = ?", id);
+            jdbcTemplate.update("delete from component where id = ?", id);
+        }
+    }
+
+    @Test
+    public void writersCommitInSequenceOrder() throws Exception {
+        Long firstId = create();
+        Long secondId = create();
+        long since = componentChangeRepository.currentSequence();
+        CountDownLatch sequenced = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // The first writer takes the next value of the change sequence, and does not commit yet
+        Future<Component> firstWrite = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            Component component = componentService.save(renamed(firstId));
+            sequenced.countDown();
+            await(release);
+            return component;
+        }));
+        assertThat(sequenced.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // So the second writer waits for it, instead of committing a higher value first
+        Future<Component> secondWrite = executor.submit(() -> componentService.save(renamed(secondId)));
+        Thread.sleep(200);
+        assertThat(secondWrite.isDone()).isFalse();
+        assertThat(componentService.findChangesSince(since, 10)).isEmpty();
+
+        release.countDown();
+        assertThat(firstWrite.get(10, TimeUnit.SECONDS).getChangeSequence()).isEqualTo(since + 1);
+        assertThat(secondWrite.get(10, TimeUnit.SECONDS).getChangeSequence()).isEqualTo(since + 2);
+        assertThat(componentService.findChangesSince(since, 10))
+            .extracting("sequence", "componentId")
+            .containsExactly(tuple(since + 1, firstId), tuple(since + 2, secondId));
+    }
+
+    @Test
+    public void findChangesUpToHighWaterMark() throws Exception {
+        Long deletedId = create();
+        Long updatedId = create();
+        long since = componentChangeRepository.currentSequence();
+
+        // Once the reader has read the tombstones, a writer deletes a component, updates another, and commits
+        ComponentChangeRepository interleavedChangeRepository = spy(new ComponentChangeRepository(jdbcTemplate));
+        doAnswer(invocation -> {
+            Object deletions = invocation.callRealMethod();
+            executor.submit(() -> {
+                componentService.delete(deletedId);
+                return componentService.save(renamed(updatedId));
+            }).get(10, TimeUnit.SECONDS);
+            return deletions;
+        }).when(interleavedChangeRepository).findDeletionsBetween(anyLong(), anyLong(), anyInt());
+        ComponentService reader = new ComponentService(componentRepository, interleavedChangeRepository, validator,
+            applicationProperties);
+
+        // The update is after the high-water mark read first, so it is not returned ahead of the missed deletion
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<ComponentChange> changes = readOnly.execute(status -> reader.findChangesSince(since, 10));
+        assertThat(changes).isEmpty();
+
+        // And both are returned by the next call, in sequence order
+        assertThat(componentService.findChangesSince(since, 10))
+            .extracting("sequence", "type", "componentId")
+            .containsExactly(tuple(since + 1, ComponentChange.Type.DELETED, deletedId),
+                tuple(since + 2, ComponentChange.Type.UPDATED, updatedId));
+    }
+
+    private Long create() {
+        Long id = componentService.save(new Component().name(DEFAULT_NAME)).getId();
+        ids.add(id);
+        return id;
+    }
+
+    private static Component renamed(Long id) {
+        Component component = new Component().name(UPDATED_NAME);
+        component.setId(id);
+        return component;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.innvo.service;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.config.ApplicationProperties;
+import com.innvo.domain.Component;
+import com.innvo.domain.ComponentChange;
+import com.innvo.repository.ComponentRepository;
+import com.innvo.repository.IdBlockRepository;
+import com.innvo.web.rest.ComponentResource;
+import com.innvo.web.rest.TestUtil;
+import com.innvo.web.rest.errors.ExceptionTranslator;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.ITopic;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the ComponentWriteBehindService, writing the components through the REST API in write-behind
+ * mode, and persisting them with the ComponentMapStore.
+ *
+ * @see ComponentWriteBehindService
+ * @see ComponentMapStore
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class ComponentWriteBehindServiceIntTest {
+
+    private static final String DEFAULT_NAME = "AAAAAAAAAA";
+    private static final String UPDATED_NAME = "BBBBBBBBBB";
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    private ComponentSearchBackend componentSearchBackend;
+
+    @Autowired
+    private ComponentChangeService componentChangeService;
+
+    @Autowired
+    private ComponentMapStore componentMapStore;
+
+    @Autowired
+    private IdBlockRepository idBlockRepository;
+
+    @Autowired
+    private HotKeyService hotKeyService;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Test
+    public void writeComponentsBehind() throws Exception {
+        // Write behind, with a delay long enough for the test to persist the pending writes itself
+        MapConfig mapConfig = new MapConfig(ComponentWriteBehindService.MAP_NAME);
+        mapConfig.setMapStoreConfig(new MapStoreConfig().setEnabled(true).setImplementation(componentMapStore)
+            .setWriteDelaySeconds(3600));
+        hazelcastInstance.getConfig().addMapConfig(mapConfig);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getWriteBehind().setEnabled(true);
+        ComponentWriteBehindService writeBehindService = new ComponentWriteBehindService(hazelcastInstance,
+            applicationProperties, idBlockRepository, componentMapStore, componentChangeService, new MetricRegistry());
+        MockMvc restComponentWriteBehindMockMvc = MockMvcBuilders
+            .standaloneSetup(new ComponentResource(componentService, componentSearchBackend,
+                componentChangeService, writeBehindService, hotKeyService))
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        IMap<Long, Component> pending = hazelcastInstance.getMap(ComponentWriteBehindService.MAP_NAME);
+        BlockingQueue<ComponentChange> changes = new LinkedBlockingQueue<>();
+        ITopic<ComponentChange> topic = hazelcastInstance.getTopic("componentChanges");
+        String listenerId = topic.addMessageListener(message -> changes.add(message.getMessageObject()));
+        Component component = new Component().name(DEFAULT_NAME);
+        try {
+            // The creation is acknowledged before it is persisted, with the last published change sequence
+            long collectionVersion = componentChangeService.getCollectionVersion();
+            MvcResult result = restComponentWriteBehindMockMvc.perform(post("/api/components")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(component)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.changeSequence").value((int) collectionVersion))
+                .andReturn();
+            Long id = jacksonMessageConverter.getObjectMapper()
+                .readValue(result.getResponse().getContentAsString(), Component.class).getId();
+            assertThat(componentRepository.findOne(id)).isNull();
+
+            // The pending component is updated, but not with a stale version
+            Component update = new Component().name(UPDATED_NAME);
+            update.setId(id);
+            update.setVersion(0);
+            restComponentWriteBehindMockMvc.perform(put("/api/components")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(update)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.changeSequence").value((int) collectionVersion));
+            restComponentWriteBehindMockMvc.perform(put("/api/components")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(update)))
+                .andExpect(status().isConflict());
+
+            // Reads by id see the pending write
+            restComponentWriteBehindMockMvc.perform(get("/api/components?ids={ids}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.components.[0].name").value(UPDATED_NAME))
+                .andExpect(jsonPath("$.components.[0].version").value(1));
+
+            // Once persisted, the component is published as created, though it was updated in between
+            pending.flush();
+            Component persisted = componentRepository.findOne(id);
+            assertThat(persisted.getName()).isEqualTo(UPDATED_NAME);
+            assertThat(persisted.getVersion()).isEqualTo(1);
+            ComponentChange change = nextChange(changes, id);
+            assertThat(change.getType()).isEqualTo(ComponentChange.Type.CREATED);
+            assertThat(change.getSequence()).isEqualTo(persisted.getChangeSequence());
+
+            // A persisted component is published as updated, with its new version merged over the row
+            update.setVersion(1);
+            update.setName(DEFAULT_NAME);
+            restComponentWriteBehindMockMvc.perform(put("/api/components")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(update)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""));
+            pending.flush();
+            assertThat(componentRepository.findOne(id).getName()).isEqualTo(DEFAULT_NAME);
+            change = nextChange(changes, id);
+            assertThat(change.getType()).isEqualTo(ComponentChange.Type.UPDATED);
+            assertThat(change.getSequence()).isGreaterThan(persisted.getChangeSequence());
+
+            // The deletion leaves a tombstone in the change sequence
+            restComponentWriteBehindMockMvc.perform(delete("/api/components/{id}", id))
+                .andExpect(status().isOk());
+            pending.flush();
+            assertThat(componentRepository.findOne(id)).isNull();
+            assertThat(nextChange(changes, id).getType()).isEqualTo(ComponentChange.Type.DELETED);
+        } finally {
+            topic.removeMessageListener(listenerId);
+            pending.destroy();
+            hazelcastInstance.getConfig().getMapConfigs().remove(ComponentWriteBehindService.MAP_NAME);
+        }
+    }
+
+    private static ComponentChange nextChange(BlockingQueue<ComponentChange> changes, Long id) throws InterruptedException {
+        ComponentChange change;
+        do {
+            change = changes.poll(10, TimeUnit.SECONDS);
+            assertThat(change).as("change of component %s", id).isNotNull();
+        } while (!change.getComponentId().equals(id));
+        return change;
+    }
+}
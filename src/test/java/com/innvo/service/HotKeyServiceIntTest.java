@@ -0,0 +1,153 @@
+package com.innvo.service;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.domain.Component;
+import com.innvo.repository.ComponentRepository;
+import com.innvo.repository.HotKeyRepository;
+import com.innvo.web.rest.ComponentResource;
+import com.innvo.web.rest.ComponentResourceIntTest;
+import com.innvo.web.rest.HotKeyResource;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.IMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the HotKeyService, counting the component reads and the searches, saving the hot keys, and
+ * pinning the hot components in the local cache.
+ *
+ * @see HotKeyService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class HotKeyServiceIntTest {
+
+    private static final String UPDATED_NAME = "BBBBBBBBBB";
+
+    @Autowired
+    private HotKeyService hotKeyService;
+
+    @Autowired
+    private HotKeyRepository hotKeyRepository;
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Autowired
+    private ComponentSearchBackend componentSearchBackend;
+
+    @Autowired
+    private ComponentChangeService componentChangeService;
+
+    @Autowired
+    private ComponentWriteBehindService componentWriteBehindService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restComponentMockMvc;
+
+    @Before
+    public void setup() {
+        ComponentResource componentResource = new ComponentResource(componentService, componentSearchBackend,
+            componentChangeService, componentWriteBehindService, hotKeyService);
+        this.restComponentMockMvc = MockMvcBuilders.standaloneSetup(componentResource)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public void hotKeys() throws Exception {
+        Component component = componentRepository.saveAndFlush(ComponentResourceIntTest.createEntity(em));
+        for (int i = 0; i < 100; i++) {
+            restComponentMockMvc.perform(get("/api/components/{id}", component.getId()))
+                .andExpect(status().isOk());
+        }
+        for (int i = 0; i < 100; i++) {
+            hotKeyService.recordQuery("hotKeyTest");
+        }
+        MockMvc restHotKeyMockMvc = MockMvcBuilders.standaloneSetup(new HotKeyResource(hotKeyService))
+            .setMessageConverters(jacksonMessageConverter).build();
+
+        restHotKeyMockMvc.perform(get("/management/hotkeys"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.components[0].key").value(component.getId().intValue()))
+            .andExpect(jsonPath("$.components[0].frequency").value(100))
+            .andExpect(jsonPath("$.queries[0].key").value("hotKeyTest"));
+
+        // A component requested often, but not read through the local cache yet
+        Component pinned = componentRepository.saveAndFlush(ComponentResourceIntTest.createEntity(em).name(UPDATED_NAME));
+        for (int i = 0; i < 50; i++) {
+            hotKeyService.recordComponent(pinned.getId());
+        }
+
+        // The hot keys are saved for the warm-up, and pinned in the local cache of the components read by id
+        hotKeyService.refresh();
+        assertThat(hotKeyRepository.findHottest(HotKeyRepository.COMPONENT, 1))
+            .containsExactly(component.getId().toString());
+        assertThat(hotKeyRepository.findHottest(HotKeyRepository.QUERY, 1)).containsExactly("hotKeyTest");
+
+        // Saving the hot keys again updates the kept ones, and deletes only the others
+        Map<String, Double> scores = new HashMap<>();
+        scores.put("hotKeyTest", 1.0);
+        scores.put("otherHotKeyTest", 2.0);
+        hotKeyRepository.replace(HotKeyRepository.QUERY, scores);
+        assertThat(hotKeyRepository.findHottest(HotKeyRepository.QUERY, 3))
+            .containsExactly("otherHotKeyTest", "hotKeyTest");
+        hotKeyRepository.replace(HotKeyRepository.QUERY, Collections.singletonMap("hotKeyTest", 3.0));
+        assertThat(hotKeyRepository.findHottest(HotKeyRepository.QUERY, 3)).containsExactly("hotKeyTest");
+        Cache cache = cacheManager.getCache(ComponentService.CACHE_NAME);
+        IMap<Object, Object> hazelcastMap = (IMap<Object, Object>) cache.getNativeCache();
+        try {
+            // Read once, the hot component is still kept over components read more often afterwards
+            restComponentMockMvc.perform(get("/api/components/{id}", pinned.getId()))
+                .andExpect(status().isOk());
+            for (long coldId = -200; coldId < 0; coldId++) {
+                hazelcastMap.put(coldId, component);
+                for (int j = 0; j < 3; j++) {
+                    cache.get(coldId);
+                }
+            }
+            long localHits = metricRegistry.meter("cache.components.local.hits").getCount();
+            restComponentMockMvc.perform(get("/api/components/{id}", pinned.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+            assertThat(metricRegistry.meter("cache.components.local.hits").getCount()).isEqualTo(localHits + 1);
+        } finally {
+            cache.clear();
+        }
+    }
+}
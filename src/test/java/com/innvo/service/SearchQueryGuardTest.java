@@ -0,0 +1,89 @@
+package com.innvo.service;
+
+import com.innvo.config.ApplicationProperties;
+import com.innvo.web.rest.errors.CustomParameterizedException;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Test class for the SearchQueryGuard.
+ *
+ * @see SearchQueryGuard
+ */
+public class SearchQueryGuardTest {
+
+    private MetricRegistry metricRegistry;
+
+    private SearchQueryGuard searchQueryGuard;
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().setMaxClauses(4);
+        metricRegistry = new MetricRegistry();
+        searchQueryGuard = new SearchQueryGuard(applicationProperties, metricRegistry);
+    }
+
+    @Test
+    public void limitFuzziness() throws Exception {
+        // Fuzzy terms allowing more than one edit are limited to one
+        assertThat(query(searchQueryGuard.analyze("name:foo~2 AND bar~3"))).isEqualTo("name:foo~1 AND bar~1");
+        assertThat(rewritten()).isEqualTo(1);
+
+        // A single edit, the default fuzziness and phrase slops are left as they are, and not counted
+        assertThat(query(searchQueryGuard.analyze("name:foo~1 OR bar~"))).isEqualTo("name:foo~1 OR bar~");
+        assertThat(query(searchQueryGuard.analyze("\"foo bar\"~3"))).isEqualTo("\"foo bar\"~3");
+        assertThat(query(searchQueryGuard.analyze("foo"))).isEqualTo("foo");
+        assertThat(rewritten()).isEqualTo(1);
+    }
+
+    @Test
+    public void filterExactTerms() {
+        // Exact field:value terms do not need scoring, so are run in filter context
+        QueryBuilder query = searchQueryGuard.analyze("name:foo AND id:1");
+        assertThat(query).isInstanceOf(BoolQueryBuilder.class);
+        assertThat(query.toString()).contains("\"filter\"").contains("name:foo AND id:1");
+
+        // But full-text, fuzzy and wildcard queries are scored
+        assertThat(searchQueryGuard.analyze("name:foo AND bar")).isInstanceOf(QueryStringQueryBuilder.class);
+        assertThat(searchQueryGuard.analyze("name:foo~1")).isInstanceOf(QueryStringQueryBuilder.class);
+        assertThat(searchQueryGuard.analyze("name:fo*")).isInstanceOf(QueryStringQueryBuilder.class);
+    }
+
+    @Test
+    public void rejectCostlyQueries() {
+        assertRejected("*foo", "leadingWildcard");
+        assertRejected("name:?foo", "leadingWildcard");
+        assertRejected("name:/fo+/", "regexp");
+        assertRejected("a b c d e", "tooManyClauses");
+        assertRejected("name:(foo", "invalid");
+        assertThat(metricRegistry.counter("elasticsearch.search.query.rejected").getCount()).isEqualTo(5);
+        assertThat(rewritten()).isEqualTo(0);
+    }
+
+    private void assertRejected(String query, String reason) {
+        Throwable thrown = catchThrowable(() -> searchQueryGuard.analyze(query));
+        assertThat(thrown).isInstanceOf(CustomParameterizedException.class);
+        assertThat(((CustomParameterizedException) thrown).getErrorVM().getParams()).containsExactly(reason);
+    }
+
+    private long rewritten() {
+        return metricRegistry.counter("elasticsearch.search.query.rewritten").getCount();
+    }
+
+    private static String query(QueryBuilder query) throws IOException {
+        assertThat(query).isInstanceOf(QueryStringQueryBuilder.class);
+        return new ObjectMapper().readTree(query.toString()).path("query_string").path("query").asText();
+    }
+}
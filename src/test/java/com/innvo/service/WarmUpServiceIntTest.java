@@ -0,0 +1,129 @@
+package com.innvo.service;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.config.ApplicationProperties;
+import com.innvo.config.WarmUpHealthIndicator;
+import com.innvo.domain.Component;
+import com.innvo.repository.ComponentRepository;
+import com.innvo.repository.HotKeyRepository;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Test class for the WarmUpService, and its cache and JIT stages.
+ *
+ * @see WarmUpService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class WarmUpServiceIntTest {
+
+    @Autowired
+    private WarmUpService warmUpService;
+
+    @Autowired
+    private WarmUpHealthIndicator warmUpHealthIndicator;
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    @Test
+    public void warmUp() throws Exception {
+        // Committed, as the stages run in threads of their own
+        Component component = componentRepository.saveAndFlush(new Component().name("AAAAAAAAAA"));
+        jdbcTemplate.update("insert into hot_key (kind, hot_key, score) values (?, ?, ?)",
+            HotKeyRepository.COMPONENT, component.getId().toString(), 1.0);
+        long warmUpsBefore = metricRegistry.timer("warm-up.cache").getCount();
+        try {
+            warmUpService.warmUp();
+
+            assertThat(warmUpService.isComplete()).isTrue();
+            assertThat(warmUpService.getStates().get("cache")).isEqualTo(WarmUpService.State.DONE);
+            assertThat(warmUpService.getStates().get("jit")).isEqualTo(WarmUpService.State.DONE);
+            assertThat(metricRegistry.timer("warm-up.cache").getCount()).isEqualTo(warmUpsBefore + 1);
+            assertThat(warmUpHealthIndicator.health().getStatus()).isEqualTo(Status.UP);
+        } finally {
+            jdbcTemplate.update("delete from hot_key where kind = ? and hot_key = ?",
+                HotKeyRepository.COMPONENT, component.getId().toString());
+            componentRepository.delete(component.getId());
+            cacheManager.getCache(ComponentService.CACHE_NAME).evict(component.getId());
+        }
+    }
+
+    @Test
+    public void warmUpWithinTimeouts() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        WarmUpStage blocked = testStage("blocked", () -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        WarmUpStage failing = testStage("failing", () -> {
+            throw new IllegalStateException("test");
+        });
+        WarmUpStage done = testStage("done", () -> { });
+        WarmUpService service = new WarmUpService(Arrays.asList(blocked, failing, done), taskExecutor,
+            new ApplicationProperties(), new MetricRegistry());
+
+        // A blocked stage is left behind once its time is out, and the next stages still run
+        long start = System.currentTimeMillis();
+        service.warmUp();
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+        assertThat(service.isComplete()).isTrue();
+        assertThat(service.getStates()).containsExactly(entry("blocked", WarmUpService.State.TIMED_OUT),
+            entry("failing", WarmUpService.State.FAILED), entry("done", WarmUpService.State.DONE));
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static WarmUpStage testStage(String name, Runnable run) {
+        return new WarmUpStage() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public long getTimeoutInMs() {
+                return 200;
+            }
+
+            @Override
+            public void run(long deadline) {
+                run.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.innvo.web.rest;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.repository.AuditEventStreamRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the AuditResource REST controller.
+ *
+ * @see AuditResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class AuditResourceIntTest {
+
+    private static final String PRINCIPAL = "audit-resource-test-user";
+    private static final String TYPE = "audit-resource-test-type";
+
+    private static final LocalDateTime FIRST_DATE = LocalDateTime.of(2000, 1, 1, 10, 0);
+    private static final LocalDateTime SECOND_DATE = LocalDateTime.of(2000, 1, 1, 11, 0);
+
+    @Autowired
+    private AuditEventStreamRepository auditEventStreamRepository;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc restAuditMockMvc;
+
+    @Before
+    public void setup() {
+        AuditResource auditResource = new AuditResource(auditEventStreamRepository,
+            jacksonMessageConverter.getObjectMapper());
+        this.restAuditMockMvc = MockMvcBuilders.standaloneSetup(auditResource)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Before
+    public void initTest() {
+        // Read with their own transactions, so committed; two events share a date, and one is after the range
+        insertEvent(-13L, PRINCIPAL + "1", FIRST_DATE);
+        insertEvent(-12L, PRINCIPAL + "2", SECOND_DATE);
+        insertEvent(-11L, PRINCIPAL + "3", SECOND_DATE);
+        insertEvent(-10L, PRINCIPAL + "4", SECOND_DATE.plusDays(2));
+        jdbcTemplate.update("insert into jhi_persistent_audit_evt_data (event_id, event_date, name, value) " +
+            "values (?, ?, ?, ?)", -12L, Timestamp.valueOf(SECOND_DATE), "test-key", "test-value");
+    }
+
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from jhi_persistent_audit_evt_data where event_id between -13 and -10");
+        jdbcTemplate.update("delete from jhi_persistent_audit_event where event_id between -13 and -10");
+    }
+
+    @Test
+    public void getAuditEventsByPage() throws Exception {
+        // The first page is full, so it links to the next one, after its last event
+        MvcResult result = restAuditMockMvc.perform(get("/management/audits?fromDate=2000-01-01&toDate=2000-01-02&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].principal").value(PRINCIPAL + "1"))
+            .andExpect(jsonPath("$.[1].principal").value(PRINCIPAL + "2"))
+            .andExpect(jsonPath("$.[1].data.test-key").value("test-value"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("afterId=-12")))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+
+        // The next page starts after it, among the events of the same date, and is the last one
+        result = restAuditMockMvc.perform(get(next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].principal").value(PRINCIPAL + "3"))
+            .andReturn();
+        assertThat(result.getResponse().getHeader(HttpHeaders.LINK)).isNull();
+    }
+
+    @Test
+    public void exportAuditEvents() throws Exception {
+        MvcResult result = restAuditMockMvc.perform(get("/management/audits/export?fromDate=2000-01-01&toDate=2000-01-02"))
+            .andExpect(request().asyncStarted())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn();
+
+        // One JSON event per line, in date order
+        restAuditMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk());
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).contains("\"principal\":\"" + PRINCIPAL + "1\"");
+        assertThat(lines[1]).contains("\"principal\":\"" + PRINCIPAL + "2\"").contains("\"test-key\":\"test-value\"");
+        assertThat(lines[2]).contains("\"principal\":\"" + PRINCIPAL + "3\"");
+    }
+
+    private void insertEvent(Long id, String principal, LocalDateTime date) {
+        jdbcTemplate.update("insert into jhi_persistent_audit_event (event_id, principal, event_date, event_type) " +
+            "values (?, ?, ?, ?)", id, principal, Timestamp.valueOf(date), TYPE);
+    }
+}
@@ -0,0 +1,99 @@
+package com.innvo.web.rest;
+
+import com.innvo.AdapcomponentApp;
+import com.innvo.domain.Component;
+import com.innvo.repository.ComponentRepository;
+import com.innvo.service.ComponentImportService;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Test class for the ComponentImportResource REST controller.
+ *
+ * @see ComponentImportResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = AdapcomponentApp.class)
+public class ComponentImportResourceIntTest {
+
+    @Autowired
+    private ComponentImportService componentImportService;
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Test
+    public void importComponents() throws Exception {
+        // The import commits a transaction per batch of 2, on another thread
+        MockMvc restComponentImportMockMvc = MockMvcBuilders
+            .standaloneSetup(new ComponentImportResource(componentImportService, jacksonMessageConverter.getObjectMapper()))
+            .setMessageConverters(jacksonMessageConverter).build();
+        String ndjson = "{\"name\":\"IMPORT1\"}\n" +
+            "{\"name\":\"" + String.join("", Collections.nCopies(51, "A")) + "\"}\n" +
+            "\"IMPORT\"\n" +
+            "{\"name\":\"IMPORT2\"}\n" +
+            "{\"name\":\"IMPORT3\"}\n";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write("[{\"name\":\"IMPORT4\"},{\"name\":\"IMPORT5\"},{\"name\":".getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            // Invalid components are rejected, and the progress is sent after each batch
+            MvcResult result = restComponentImportMockMvc.perform(post("/api/components/_import")
+                .contentType("application/x-ndjson")
+                .content(ndjson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            result.getAsyncResult();
+            assertThat(Arrays.stream(result.getResponse().getContentAsString().split("\n"))
+                .map(line -> line.substring(0, line.indexOf(",\"elapsedInMs\""))).collect(Collectors.toList()))
+                .containsExactly(
+                    "{\"rows\":2,\"inserted\":1,\"rejected\":1",
+                    "{\"rows\":4,\"inserted\":2,\"rejected\":2",
+                    "{\"rows\":5,\"inserted\":3,\"rejected\":2",
+                    "{\"rows\":5,\"inserted\":3,\"rejected\":2");
+
+            // A gzip-encoded array cut short keeps the batches written before the error
+            result = restComponentImportMockMvc.perform(post("/api/components/_import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Content-Encoding", "gzip")
+                .content(gzipped.toByteArray()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            result.getAsyncResult();
+            String[] lines = result.getResponse().getContentAsString().split("\n");
+            assertThat(lines).hasSize(2);
+            assertThat(lines[1]).startsWith("{\"rows\":2,\"inserted\":2,\"rejected\":0,").contains("\"error\"");
+
+            assertThat(componentRepository.findAll().stream().map(Component::getName)
+                .filter(name -> name.startsWith("IMPORT")).collect(Collectors.toList()))
+                .hasSize(5).containsOnly("IMPORT1", "IMPORT2", "IMPORT3", "IMPORT4", "IMPORT5");
+        } finally {
+            componentRepository.delete(componentRepository.findAll().stream()
+                .filter(imported -> imported.getName().startsWith("IMPORT")).collect(Collectors.toList()));
+        }
+    }
+}
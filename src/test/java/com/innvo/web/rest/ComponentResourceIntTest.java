@@ -2,27 +2,50 @@ package com.innvo.web.rest;
 
 import com.innvo.AdapcomponentApp;
 
+import com.innvo.config.ApplicationProperties;
 import com.innvo.domain.Component;
+import com.innvo.domain.ComponentChange;
+import com.innvo.repository.ComponentChangeRepository;
 import com.innvo.repository.ComponentRepository;
 import com.innvo.repository.search.ComponentSearchRepository;
+import com.innvo.service.ComponentChangeService;
+import com.innvo.service.ComponentSearchBackend;
+import com.innvo.service.ComponentService;
+import com.innvo.service.ComponentWriteBehindService;
+import com.innvo.service.DatabaseComponentSearchBackend;
+import com.innvo.service.HotKeyService;
+import com.innvo.web.rest.errors.ErrorConstants;
 import com.innvo.web.rest.errors.ExceptionTranslator;
 
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
@@ -47,6 +70,40 @@ public class ComponentResourceIntTest {
     @Autowired
     private ComponentSearchRepository componentSearchRepository;
 
+    @Autowired
+    private ComponentSearchBackend componentSearchBackend;
+
+    @Autowired
+    private DatabaseComponentSearchBackend databaseComponentSearchBackend;
+
+    @Autowired
+    private ComponentChangeService componentChangeService;
+
+    @Autowired
+    private ComponentChangeRepository componentChangeRepository;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Autowired
+    private ComponentWriteBehindService componentWriteBehindService;
+
+    @Autowired
+    private HotKeyService hotKeyService;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -66,7 +123,8 @@ public class ComponentResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        ComponentResource componentResource = new ComponentResource(componentRepository, componentSearchRepository);
+        ComponentResource componentResource = new ComponentResource(componentService, componentSearchBackend,
+            componentChangeService, componentWriteBehindService, hotKeyService);
         this.restComponentMockMvc = MockMvcBuilders.standaloneSetup(componentResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -178,6 +236,74 @@ public class ComponentResourceIntTest {
             .andExpect(jsonPath("$.name").value(DEFAULT_NAME.toString()));
     }
 
+    @Test
+    @Transactional
+    public void getNotModifiedComponent() throws Exception {
+        // Initialize the database
+        componentRepository.saveAndFlush(component);
+
+        // Get the component with the ETag of its version
+        restComponentMockMvc.perform(get("/api/components/{id}", component.getId())
+            .header("If-None-Match", "\"" + component.getVersion() + "\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // Get the component with the ETag of another version
+        restComponentMockMvc.perform(get("/api/components/{id}", component.getId())
+            .header("If-None-Match", "\"" + (component.getVersion() + 1) + "\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"" + component.getVersion() + "\""));
+    }
+
+    @Test
+    @Transactional
+    public void getNotModifiedComponents() throws Exception {
+        // Get all the components, with the ETag of the collection
+        String eTag = restComponentMockMvc.perform(get("/api/components?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        restComponentMockMvc.perform(get("/api/components?sort=id,desc")
+            .header("If-None-Match", eTag))
+            .andExpect(status().isNotModified());
+
+        // Create a component, which changes the collection
+        restComponentMockMvc.perform(post("/api/components")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(component)))
+            .andExpect(status().isCreated());
+
+        restComponentMockMvc.perform(get("/api/components?sort=id,desc")
+            .header("If-None-Match", eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)));
+    }
+
+    @Test
+    @Transactional
+    public void getComponentsById() throws Exception {
+        // Initialize the database
+        componentRepository.saveAndFlush(component);
+        Component other = componentRepository.saveAndFlush(createEntity(em).name(UPDATED_NAME));
+
+        // Get the components, in the order of the ids
+        restComponentMockMvc.perform(get("/api/components?ids={ids}",
+                other.getId() + "," + Long.MAX_VALUE + "," + component.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.components.[0].id").value(other.getId().intValue()))
+            .andExpect(jsonPath("$.components.[0].name").value(UPDATED_NAME))
+            .andExpect(jsonPath("$.components.[1].id").value(component.getId().intValue()))
+            .andExpect(jsonPath("$.missingIds").value(hasItem(Long.MAX_VALUE)));
+
+        restComponentMockMvc.perform(post("/api/components/_get")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(new Long[] {component.getId(), Long.MAX_VALUE})))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.components.[0].id").value(component.getId().intValue()))
+            .andExpect(jsonPath("$.missingIds").value(hasItem(Long.MAX_VALUE)));
+    }
+
     @Test
     @Transactional
     public void getNonExistingComponent() throws Exception {
@@ -215,6 +341,81 @@ public class ComponentResourceIntTest {
         assertThat(componentEs).isEqualToComparingFieldByField(testComponent);
     }
 
+    @Test
+    @Transactional
+    public void updateComponentVersions() throws Exception {
+        // Initialize the database
+        componentRepository.saveAndFlush(component);
+        long version = component.getVersion();
+        String previousVersion = "{\"id\":" + component.getId() + ",\"name\":\"" + UPDATED_NAME + "\",\"version\":" +
+            version + "}";
+        restComponentMockMvc.perform(put("/api/components")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(previousVersion))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"" + (version + 1) + "\""));
+
+        // Updating the previous version is a conflict
+        restComponentMockMvc.perform(put("/api/components")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(previousVersion))
+            .andExpect(status().isConflict());
+
+        // Without a version, the last write wins
+        restComponentMockMvc.perform(put("/api/components")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content("{\"id\":" + component.getId() + ",\"name\":\"" + DEFAULT_NAME + "\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"" + (version + 2) + "\""))
+            .andExpect(jsonPath("$.name").value(DEFAULT_NAME));
+    }
+
+    @Test
+    @Transactional
+    public void patchComponent() throws Exception {
+        // Initialize the database
+        componentRepository.saveAndFlush(component);
+        String patch = "{\"name\":\"" + UPDATED_NAME + "\"}";
+
+        // The ETag of the version is required
+        restComponentMockMvc.perform(patch("/api/components/{id}", component.getId())
+            .contentType("application/merge-patch+json")
+            .content(patch))
+            .andExpect(status().isPreconditionRequired());
+
+        // Patch the component
+        restComponentMockMvc.perform(patch("/api/components/{id}", component.getId())
+            .contentType("application/merge-patch+json")
+            .header("If-Match", "\"" + component.getVersion() + "\"")
+            .content(patch))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"" + (component.getVersion() + 1) + "\""))
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+
+        // Validate the Component in the database
+        em.clear();
+        Component testComponent = componentRepository.findOne(component.getId());
+        assertThat(testComponent.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testComponent.getVersion()).isEqualTo(component.getVersion() + 1);
+
+        // Patching the previous version is a conflict
+        restComponentMockMvc.perform(patch("/api/components/{id}", component.getId())
+            .contentType("application/merge-patch+json")
+            .header("If-Match", "\"" + component.getVersion() + "\"")
+            .content(patch))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_CONCURRENCY_FAILURE));
+
+        // An empty patch changes nothing
+        restComponentMockMvc.perform(patch("/api/components/{id}", component.getId())
+            .contentType("application/merge-patch+json")
+            .header("If-Match", "\"" + (component.getVersion() + 1) + "\"")
+            .content("{}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"" + (component.getVersion() + 1) + "\""))
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+    }
+
     @Test
     @Transactional
     public void updateNonExistingComponent() throws Exception {
@@ -270,6 +471,182 @@ public class ComponentResourceIntTest {
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getComponentChanges() throws Exception {
+        // Initialize the database
+        Component savedComponent = componentService.save(component);
+        Component deletedComponent = componentService.save(new Component().name(UPDATED_NAME));
+        componentService.delete(deletedComponent.getId());
+
+        // Get the changes since before the first save
+        restComponentMockMvc.perform(get("/api/components/_changes?since={since}", savedComponent.getChangeSequence() - 1))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].type").value("UPDATED"))
+            .andExpect(jsonPath("$.[0].componentId").value(savedComponent.getId().intValue()))
+            .andExpect(jsonPath("$.[0].component.name").value(DEFAULT_NAME))
+            .andExpect(jsonPath("$.[1].type").value("DELETED"))
+            .andExpect(jsonPath("$.[1].componentId").value(deletedComponent.getId().intValue()))
+            .andExpect(jsonPath("$.[1].sequence").value((int) deletedComponent.getChangeSequence() + 1));
+
+        // Nothing changed since the deletion
+        restComponentMockMvc.perform(get("/api/components/_changes?since={since}", deletedComponent.getChangeSequence() + 1))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @Transactional
+    public void purgeTombstones() throws Exception {
+        Component savedComponent = componentService.save(component);
+        Component expiredComponent = componentService.save(new Component().name(UPDATED_NAME));
+        long expiredSequence = componentService.delete(expiredComponent.getId());
+        jdbcTemplate.update("update component_tombstone set deleted_date = ? where component_id = ?",
+            Timestamp.valueOf(LocalDateTime.now().minusDays(31)), expiredComponent.getId());
+        Component deletedComponent = componentService.save(new Component().name(UPDATED_NAME));
+        long deletedSequence = componentService.delete(deletedComponent.getId());
+
+        // Only the tombstones past the retention period are purged
+        componentService.purgeTombstones();
+        assertThat(jdbcTemplate.queryForList("select component_id from component_tombstone where component_id in (?, ?)",
+            Long.class, expiredComponent.getId(), deletedComponent.getId())).containsExactly(deletedComponent.getId());
+
+        // A client that synced before a purged deletion must sync again from the start
+        restComponentMockMvc.perform(get("/api/components/_changes?since={since}", savedComponent.getChangeSequence()))
+            .andExpect(status().isGone())
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_CHANGES_EXPIRED));
+        restComponentMockMvc.perform(get("/api/components/_changes?since={since}", expiredSequence))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].sequence").value(hasItem((int) deletedSequence)));
+        restComponentMockMvc.perform(get("/api/components/_changes?since=0"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    public void streamComponentChanges() throws Exception {
+        // The events are written as text, around the JSON data
+        MockMvc restComponentStreamMockMvc = MockMvcBuilders
+            .standaloneSetup(new ComponentResource(componentService, componentSearchBackend,
+                componentChangeService, componentWriteBehindService, hotKeyService))
+            .setMessageConverters(new StringHttpMessageConverter(), jacksonMessageConverter).build();
+        MvcResult subscription = restComponentStreamMockMvc.perform(get("/api/components/_changes/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Create the Component
+        restComponentMockMvc.perform(post("/api/components")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(component)))
+            .andExpect(status().isCreated());
+
+        // The change is pushed to the subscriber
+        String events = "";
+        for (int i = 0; i < 50 && !events.contains("event:created"); i++) {
+            Thread.sleep(100);
+            events = subscription.getResponse().getContentAsString();
+        }
+        assertThat(events).contains("event:created");
+        assertThat(events).contains("\"type\":\"CREATED\"");
+        assertThat(events).contains(DEFAULT_NAME);
+    }
+
+    @Test
+    public void resumeComponentChanges() throws Exception {
+        // A service of its own keeps only the changes of this test, far after the ones of the database
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ComponentChangeService changeService = new ComponentChangeService(hazelcastInstance, applicationProperties,
+            componentChangeRepository, cacheManager, taskExecutor, new MetricRegistry());
+        changeService.init();
+        MockMvc restComponentStreamMockMvc = MockMvcBuilders
+            .standaloneSetup(new ComponentResource(componentService, componentSearchBackend,
+                changeService, componentWriteBehindService, hotKeyService))
+            .setMessageConverters(new StringHttpMessageConverter(), jacksonMessageConverter).build();
+        long base = 1000000000L;
+        try {
+            // The change 1 arrives after the change 2, so a client of another instance may have missed it
+            publishChanges(base + 2, base + 1, base + 3, base + 5);
+
+            // A change below the last event is still missing
+            assertThat(streamChanges(restComponentStreamMockMvc, base + 5, "event:reset")).doesNotContain("id:");
+
+            // Once it arrived, the changes are replayed in sequence order, from before the first late one
+            publishChanges(base + 4);
+            String events = streamChanges(restComponentStreamMockMvc, base + 2, "id:" + (base + 5));
+            assertThat(events).doesNotContain("event:reset");
+            assertThat(events.indexOf("id:" + (base + 1))).isGreaterThanOrEqualTo(0)
+                .isLessThan(events.indexOf("id:" + (base + 2)));
+            assertThat(events.indexOf("id:" + (base + 3))).isGreaterThan(events.indexOf("id:" + (base + 2)))
+                .isLessThan(events.indexOf("id:" + (base + 4)));
+        } finally {
+            changeService.destroy();
+        }
+    }
+
+    private void publishChanges(long... sequences) throws InterruptedException {
+        // The topic calls the listeners of a member in order, so the service received the changes before this one
+        ITopic<ComponentChange> topic = hazelcastInstance.getTopic("componentChanges");
+        CountDownLatch received = new CountDownLatch(sequences.length);
+        String listenerId = topic.addMessageListener(message -> received.countDown());
+        try {
+            for (long sequence : sequences) {
+                topic.publish(new ComponentChange(sequence, ComponentChange.Type.DELETED, sequence, null));
+            }
+            assertThat(received.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            topic.removeMessageListener(listenerId);
+        }
+    }
+
+    private static String streamChanges(MockMvc mockMvc, long lastEventId, String expected) throws Exception {
+        MvcResult subscription = mockMvc.perform(get("/api/components/_changes/stream")
+            .header("Last-Event-ID", lastEventId))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String events = "";
+        for (int i = 0; i < 50 && !events.contains(expected); i++) {
+            Thread.sleep(100);
+            events = subscription.getResponse().getContentAsString();
+        }
+        assertThat(events).contains(expected);
+        return events;
+    }
+
+    @Test
+    @Transactional
+    public void searchComponentWithLeadingWildcard() throws Exception {
+        // Leading wildcards scan the whole index, so the query is rejected
+        restComponentMockMvc.perform(get("/api/_search/components?query=*AAA"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_SEARCH_QUERY_REJECTED))
+            .andExpect(jsonPath("$.params[0]").value("leadingWildcard"));
+    }
+
+    @Test
+    @Transactional
+    public void searchComponentInDatabase() throws Exception {
+        // Initialize the database
+        componentRepository.saveAndFlush(component);
+        componentRepository.saveAndFlush(new Component().name("X" + DEFAULT_NAME));
+        MockMvc restComponentDatabaseMockMvc = MockMvcBuilders
+            .standaloneSetup(new ComponentResource(componentService, databaseComponentSearchBackend,
+                componentChangeService, componentWriteBehindService, hotKeyService))
+            .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+
+        // Search the component by name, the prefix match ranking first
+        restComponentDatabaseMockMvc.perform(get("/api/_search/components?query=" + DEFAULT_NAME.toLowerCase()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[0].id").value(component.getId().intValue()))
+            .andExpect(jsonPath("$.[0].name").value(DEFAULT_NAME))
+            .andExpect(jsonPath("$.[1].name").value("X" + DEFAULT_NAME));
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {